@@ -1,11 +1,17 @@
 package br.com.trabalho.compilerui;
 
+import br.com.trabalho.compilerui.cli.BatchCompiler;
 import br.com.trabalho.compilerui.ui.AppFrame;
 
 import javax.swing.*;
 
 public class Main {
     public static void main(String[] args) {
+        // Com argumentos: compila em lote pela linha de comando, sem abrir a interface
+        if (args.length > 0) {
+            System.exit(BatchCompiler.run(args));
+        }
+
         SwingUtilities.invokeLater(() -> {
             try {
                 // Força LAF cross-platform (evita "barras ocultas")
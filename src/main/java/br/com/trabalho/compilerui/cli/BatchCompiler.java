@@ -0,0 +1,240 @@
+package br.com.trabalho.compilerui.cli;
+
+import br.com.trabalho.compilerui.compiler.CompileResult;
+import br.com.trabalho.compilerui.compiler.CompilerPipeline;
+import br.com.trabalho.compilerui.io.TextFileIO;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Modo linha de comando: compila vários programas .txt em paralelo, sem
+ * interface gráfica. Para cada fonte compilado com sucesso grava o .il na
+ * mesma pasta, como o botão compilar do AppFrame.
+ *
+ * Uso: [-j N] [-a] [--no-optimize] caminho...   (arquivos, pastas ou globs como "progs/**.txt")
+ * Com -a (--all-errors) cada arquivo lista todos os seus erros, não só o primeiro.
+ * Com --no-optimize o .il sai sem a dobra de constantes e sem a otimização
+ * peephole; senão o resumo final informa quantas instruções a peephole removeu.
+ */
+public final class BatchCompiler {
+
+    private final int workers;
+    private final PrintStream out;
+    private final boolean allErrors;
+    private final boolean optimize;
+    private final CompilerPipeline pipeline;
+
+    public BatchCompiler(int workers, PrintStream out) {
+        this(workers, out, false);
+    }
+
+    public BatchCompiler(int workers, PrintStream out, boolean allErrors) {
+        this(workers, out, allErrors, true);
+    }
+
+    public BatchCompiler(int workers, PrintStream out, boolean allErrors, boolean optimize) {
+        this.workers = workers;
+        this.out = out;
+        this.allErrors = allErrors;
+        this.optimize = optimize;
+        this.pipeline = new CompilerPipeline(optimize);
+    }
+
+    /** Ponto de entrada da linha de comando; devolve o código de saída do processo. */
+    public static int run(String[] args) {
+        int workers = Runtime.getRuntime().availableProcessors();
+        boolean allErrors = false;
+        boolean optimize = true;
+        List<String> paths = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            if ("-j".equals(args[i]) || "--workers".equals(args[i])) {
+                if (i + 1 == args.length) return usage();
+                try {
+                    workers = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    return usage();
+                }
+            } else if ("-a".equals(args[i]) || "--all-errors".equals(args[i])) {
+                allErrors = true;
+            } else if ("--no-optimize".equals(args[i])) {
+                optimize = false;
+            } else {
+                paths.add(args[i]);
+            }
+        }
+        if (paths.isEmpty() || workers < 1) {
+            return usage();
+        }
+
+        try {
+            List<Path> files = collect(paths);
+            return new BatchCompiler(workers, System.out, allErrors, optimize).compileAll(files) ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("Erro ao listar arquivos: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    private static int usage() {
+        System.err.println("uso: [-j N] [-a] [--no-optimize] arquivo.txt | pasta | glob ...");
+        return 2;
+    }
+
+    /** Expande pastas (todos os .txt, recursivamente) e globs em uma lista de arquivos. */
+    static List<Path> collect(List<String> args) throws IOException {
+        Set<Path> files = new LinkedHashSet<>();
+
+        for (String arg : args) {
+            int glob = indexOfGlob(arg);
+            if (glob >= 0) {
+                // percorre a parte fixa do caminho (antes do primeiro curinga)
+                int slash = arg.lastIndexOf('/', glob);
+                boolean relative = slash < 0;
+                Path base = Path.of(relative ? "." : arg.substring(0, slash + 1));
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + arg);
+                try (Stream<Path> walk = Files.walk(base)) {
+                    walk.filter(Files::isRegularFile)
+                            .map(p -> relative ? base.relativize(p) : p)
+                            .filter(matcher::matches)
+                            .sorted()
+                            .forEach(files::add);
+                }
+            } else {
+                Path path = Path.of(arg);
+                if (Files.isDirectory(path)) {
+                    try (Stream<Path> walk = Files.walk(path)) {
+                        walk.filter(Files::isRegularFile)
+                                .filter(p -> p.getFileName().toString().toLowerCase().endsWith(".txt"))
+                                .sorted()
+                                .forEach(files::add);
+                    }
+                } else {
+                    files.add(path);
+                }
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    private static int indexOfGlob(String arg) {
+        for (int i = 0; i < arg.length(); i++) {
+            char c = arg.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') return i;
+        }
+        return -1;
+    }
+
+    /** Compila todos os arquivos; devolve true se todos compilaram sem erro. */
+    public boolean compileAll(List<Path> files) {
+        long inicio = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        List<Future<FileResult>> futures = new ArrayList<>();
+        try {
+            for (Path file : files) {
+                futures.add(pool.submit(() -> compile(file)));
+            }
+
+            int ok = 0;
+            long bytes = 0;
+            long geradas = 0;
+            long removidas = 0;
+            // resumo por arquivo, na ordem da entrada
+            for (int i = 0; i < futures.size(); i++) {
+                FileResult r;
+                try {
+                    r = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    // falha inesperada num arquivo não derruba os outros
+                    r = new FileResult(files.get(i), false, "erro interno: " + e.getCause(), 0, 0);
+                }
+                out.println(r.summary());
+                if (r.ok) ok++;
+                bytes += r.bytes;
+                geradas += r.geradas;
+                removidas += r.removidas;
+            }
+
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            out.printf("%d arquivo(s): %d ok, %d com erro em %.2f s (%.1f arquivos/s, %.2f MB/s, %d worker(s))%n",
+                    files.size(), ok, files.size() - ok, segundos,
+                    files.size() / segundos, bytes / 1e6 / segundos, workers);
+            if (optimize && ok > 0) {
+                out.printf("IL: %d instrução(ões) gerada(s), %d removida(s) pela otimização peephole (%.1f%%)%n",
+                        geradas, removidas, geradas == 0 ? 0.0 : removidas * 100.0 / geradas);
+            }
+            return ok == files.size();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private FileResult compile(Path file) {
+        long inicio = System.nanoTime();
+        try {
+            long bytes = Files.size(file);
+            // o .il é gravado durante a análise e só substitui o anterior se compilou sem erros
+            CompileResult result = pipeline.compile(file, allErrors, TextFileIO.replaceExtension(file, ".il"));
+            List<String> output = result.getOutput();
+            // com -a a saída de erro tem uma linha por erro
+            String msg = output.isEmpty() ? "compilação não retornou mensagem"
+                    : allErrors ? String.join("\n     ", output) : output.get(0);
+            return new FileResult(file, result.succeeded(), msg, bytes, System.nanoTime() - inicio,
+                    result.getInstrucoesGeradas(), result.getInstrucoesRemovidas());
+        } catch (IOException e) {
+            return new FileResult(file, false, "erro de E/S: " + e.getMessage(), 0, System.nanoTime() - inicio);
+        } catch (UncheckedIOException e) {
+            return new FileResult(file, false, "erro de E/S: " + e.getCause().getMessage(), 0, System.nanoTime() - inicio);
+        } catch (RuntimeException e) {
+            return new FileResult(file, false, "erro interno: " + e, 0, System.nanoTime() - inicio);
+        }
+    }
+
+    private static final class FileResult {
+        final Path file;
+        final boolean ok;
+        final String message;
+        final long bytes;
+        final long nanos;
+        final long geradas;   // instruções IL, somadas no resumo final
+        final long removidas;
+
+        FileResult(Path file, boolean ok, String message, long bytes, long nanos) {
+            this(file, ok, message, bytes, nanos, 0, 0);
+        }
+
+        FileResult(Path file, boolean ok, String message, long bytes, long nanos, long geradas, long removidas) {
+            this.file = file;
+            this.ok = ok;
+            this.message = message;
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.geradas = geradas;
+            this.removidas = removidas;
+        }
+
+        String summary() {
+            return String.format("%-4s %s (%.1f ms)%s",
+                    ok ? "OK" : "ERRO", file, nanos / 1e6, ok ? "" : ": " + message);
+        }
+    }
+}
@@ -3,17 +3,25 @@ package br.com.trabalho.compilerui.compiler;
 public class AnalysisError extends Exception
 {
     private int position;
+    private int line;
+    private int column;
 
-    public AnalysisError(String msg, int position)
+    public AnalysisError(String msg, int position, int line, int column)
     {
         super(msg);
         this.position = position;
+        this.line = line;
+        this.column = column;
+    }
+
+    public AnalysisError(String msg, int position)
+    {
+        this(msg, position, -1, -1);
     }
 
     public AnalysisError(String msg)
     {
-        super(msg);
-        this.position = -1;
+        this(msg, -1, -1, -1);
     }
 
     public int getPosition()
@@ -21,6 +29,18 @@ public class AnalysisError extends Exception
         return position;
     }
 
+    /** Linha do erro (a partir de 1), ou -1 se desconhecida. */
+    public int getLine()
+    {
+        return line;
+    }
+
+    /** Coluna do erro (a partir de 1), ou -1 se desconhecida. */
+    public int getColumn()
+    {
+        return column;
+    }
+
     public String toString()
     {
         return super.toString() + ", @ "+position;
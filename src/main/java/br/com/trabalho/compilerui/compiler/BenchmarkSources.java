@@ -0,0 +1,79 @@
+package br.com.trabalho.compilerui.compiler;
+
+/** Gera programas grandes (e válidos) para os benchmarks do compilador. */
+final class BenchmarkSources {
+
+    private static final String[] COMANDOS = {
+            "  a = b + 12 * (c - 3);\n",
+            "  f = f / 2.5 + a;\n",
+            "  -- comentario de linha\n",
+            "  if a > b and not ok print (\"maior\", a); else b = b + 1; end;\n",
+            "  do c = c - 1; until c < 0;\n",
+            "  s = \"texto qualquer\";\n",
+            "  { comentario de bloco }\n",
+            "  ok = a == b or f ~= 1.0;\n",
+            "  read (\"valor\", b);\n",
+            "  print (a, f, s, ok);\n",
+    };
+
+    private BenchmarkSources() {}
+
+    /** Programa com "comandos" linhas de comandos variados após as declarações. */
+    static String programa(int comandos) {
+        StringBuilder sb = new StringBuilder(comandos * 32);
+        sb.append("begin\n");
+        sb.append("  int a, b, c;\n");
+        sb.append("  float f;\n");
+        sb.append("  string s;\n");
+        sb.append("  bool ok;\n");
+        for (int i = 0; i < comandos; i++) {
+            sb.append(COMANDOS[i % COMANDOS.length]);
+        }
+        sb.append("end\n");
+        return sb.toString();
+    }
+
+    /** Programa só de atribuições com expressões aninhadas "profundidade" níveis de parênteses. */
+    static String expressoesAninhadas(int comandos, int profundidade) {
+        String expressao = "b";
+        for (int i = 0; i < profundidade; i++) {
+            expressao = "(" + expressao + " + 1) * 2";
+        }
+
+        StringBuilder sb = new StringBuilder(comandos * (expressao.length() + 8));
+        sb.append("begin\n");
+        sb.append("  int a, b;\n");
+        for (int i = 0; i < comandos; i++) {
+            sb.append("  a = ").append(expressao).append(";\n");
+        }
+        sb.append("end\n");
+        return sb.toString();
+    }
+
+    /**
+     * Programa com "variaveis" variáveis declaradas (v_0, v_1, ...) e
+     * "comandos" atribuições que usam variáveis espalhadas pela tabela.
+     */
+    static String muitasVariaveis(int variaveis, int comandos) {
+        String[] tipos = { "int", "float", "int", "float" };
+        StringBuilder sb = new StringBuilder(variaveis * 12 + comandos * 48);
+        sb.append("begin\n");
+        for (int i = 0; i < variaveis; i += 8) {
+            sb.append("  ").append(tipos[(i / 8) % tipos.length]).append(' ');
+            for (int j = i; j < Math.min(i + 8, variaveis); j++) {
+                if (j > i) sb.append(", ");
+                sb.append("v_").append(j);
+            }
+            sb.append(";\n");
+        }
+        for (int i = 0; i < comandos; i++) {
+            int a = (int) ((i * 7919L) % variaveis);
+            int b = (int) ((i * 104729L) % variaveis);
+            int c = (int) ((i * 1299709L) % variaveis);
+            sb.append("  v_").append(a).append(" = v_").append(b).append(" * 2 + v_").append(c)
+              .append(" - ").append(i % 100).append(";\n");
+        }
+        sb.append("end\n");
+        return sb.toString();
+    }
+}
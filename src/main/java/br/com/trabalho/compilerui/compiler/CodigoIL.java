@@ -0,0 +1,89 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.util.Arrays;
+
+/**
+ * Sequência de instruções ainda não escritas: um código (OpIL) e um
+ * argumento int por instrução, em dois vetores, e os operandos de texto
+ * (lexemas das constantes, linhas do cabeçalho) num pool à parte.
+ * O SemanticContext acumula aqui o código de um comando e o EscritorIL
+ * o transforma em texto; depois disso o buffer é esvaziado e reaproveitado.
+ */
+final class CodigoIL {
+
+    private int[] ops = new int[64];
+    private int[] args = new int[64];
+    private int tamanho;
+
+    private String[] operandos = new String[16];
+    private int quantidadeOperandos;
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    int op(int i) {
+        return ops[i];
+    }
+
+    int arg(int i) {
+        return args[i];
+    }
+
+    String operando(int indice) {
+        return operandos[indice];
+    }
+
+    void adicionar(int op) {
+        adicionar(op, 0);
+    }
+
+    void adicionar(int op, int arg) {
+        if (tamanho == ops.length) {
+            ops = Arrays.copyOf(ops, tamanho * 2);
+            args = Arrays.copyOf(args, tamanho * 2);
+        }
+        ops[tamanho] = op;
+        args[tamanho] = arg;
+        tamanho++;
+    }
+
+    /** Instrução cujo argumento é "operando", guardado no pool. */
+    void adicionar(int op, String operando) {
+        adicionar(op, novoOperando(operando));
+    }
+
+    /** Troca a instrução "i". */
+    void definir(int i, int op, int arg) {
+        ops[i] = op;
+        args[i] = arg;
+    }
+
+    /** Guarda "operando" no pool e devolve o índice, para usar em definir(). */
+    int novoOperando(String operando) {
+        if (quantidadeOperandos == operandos.length) {
+            operandos = Arrays.copyOf(operandos, quantidadeOperandos * 2);
+        }
+        operandos[quantidadeOperandos] = operando;
+        return quantidadeOperandos++;
+    }
+
+    /** Descarta as instruções a partir de "tamanho". */
+    void truncar(int tamanho) {
+        this.tamanho = tamanho;
+    }
+
+    /** Tira as instruções [de, ate), puxando as seguintes para o lugar delas. */
+    void remover(int de, int ate) {
+        System.arraycopy(ops, ate, ops, de, tamanho - ate);
+        System.arraycopy(args, ate, args, de, tamanho - ate);
+        tamanho -= ate - de;
+    }
+
+    void limpar() {
+        tamanho = 0;
+        // solta as Strings para não segurar lexemas já escritos
+        Arrays.fill(operandos, 0, quantidadeOperandos, null);
+        quantidadeOperandos = 0;
+    }
+}
@@ -0,0 +1,46 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.util.List;
+
+/**
+ * Resultado de uma compilação: as linhas de saída (as mesmas de
+ * CompilerPipeline.compile) e, se compilou sem erros, quantas instruções IL
+ * foram geradas e quantas a otimização peephole removeu. Quem compila
+ * vários fontes soma as contagens; o pipeline não guarda nada entre uma
+ * compilação e outra.
+ */
+public final class CompileResult {
+
+    private final List<String> output;
+    private final long instrucoesGeradas;
+    private final long instrucoesRemovidas;
+
+    CompileResult(List<String> output, long instrucoesGeradas, long instrucoesRemovidas) {
+        this.output = output;
+        this.instrucoesGeradas = instrucoesGeradas;
+        this.instrucoesRemovidas = instrucoesRemovidas;
+    }
+
+    /** Resultado com erro (ou sem contagem): só as linhas de saída. */
+    CompileResult(List<String> output) {
+        this(output, 0, 0);
+    }
+
+    public List<String> getOutput() {
+        return output;
+    }
+
+    public boolean succeeded() {
+        return ParserRunner.succeeded(output);
+    }
+
+    /** Instruções IL geradas, antes da otimização (0 se houve erro ou a otimização está desligada). */
+    public long getInstrucoesGeradas() {
+        return instrucoesGeradas;
+    }
+
+    /** Quantas das instruções geradas a otimização peephole removeu. */
+    public long getInstrucoesRemovidas() {
+        return instrucoesRemovidas;
+    }
+}
@@ -0,0 +1,254 @@
+package br.com.trabalho.compilerui.compiler;
+
+import br.com.trabalho.compilerui.io.TextFileIO;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Pipeline de compilação (léxico + sintático + semântico) que pode ser
+ * compartilhado entre threads.
+ *
+ * Garantias para uso concorrente:
+ * - a configuração é imutável e o pipeline não acumula nada entre
+ *   compilações (as contagens de instruções voltam no CompileResult);
+ *   todo estado de uma compilação (Lexico,
+ *   Sintatico, EnhancedSemantico/SemanticContext) pertence a uma única
+ *   chamada e nunca é visto por outra thread;
+ * - Lexico e Sintatico são reaproveitados por thread (buffer do léxico e
+ *   pilha do sintático), e uma chamada reentrante na mesma thread recebe
+ *   instâncias novas;
+ * - as tabelas usadas no laço (DenseScannerTable, ReservedWords,
+ *   ParserTables) são cópias privadas montadas na carga das classes; os
+ *   vetores públicos de ScannerConstants/ParserConstants, gerados pelo
+ *   GALS, devem ser tratados como somente leitura.
+ */
+public final class CompilerPipeline {
+
+    private static final CompilerPipeline PADRAO = new CompilerPipeline();
+
+    /** Fontes maiores que isso não deixam o buffer do léxico preso à thread. */
+    private static final int POOL_LIMIT = 1 << 20;
+
+    private final ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(Workspace::new);
+
+    private final boolean otimizar;
+
+    public CompilerPipeline() {
+        this(true);
+    }
+
+    /** Com otimizar = false o IL gerado não tem dobra de constantes nem passa pela otimização peephole (OtimizadorIL). */
+    public CompilerPipeline(boolean otimizar) {
+        this.otimizar = otimizar;
+    }
+
+    public static CompilerPipeline padrao() {
+        return PADRAO;
+    }
+
+    /** Semântico de uma compilação, com a otimização configurada (desligada se o IL vai ser descartado). */
+    private EnhancedSemantico semantico(Emitter saida) {
+        return new EnhancedSemantico(saida, otimizar && saida != NullEmitter.INSTANCE);
+    }
+
+    /** Resultado com as instruções de uma compilação que terminou sem erros. */
+    private static CompileResult contar(List<String> out, EnhancedSemantico semantico) {
+        if (!ParserRunner.succeeded(out)) return new CompileResult(out);
+        SemanticContext ctx = semantico.getCtx();
+        return new CompileResult(out, ctx.getInstrucoesGeradas(), ctx.getInstrucoesRemovidas());
+    }
+
+    /** Compila o fonte; mesma saída de ParserRunner.run(String). */
+    public List<String> compile(String source) {
+        return compile(source, false);
+    }
+
+    /**
+     * Com recover = true a análise não para no primeiro erro: a saída traz
+     * uma linha "linha X: ..." por erro léxico, sintático ou semântico.
+     */
+    public List<String> compile(String source, boolean recover) {
+        return compile(source, recover, null);
+    }
+
+    /**
+     * Como compile(String, boolean), informando o progresso (offset do fonte
+     * já analisado) a "progress". Se a thread for interrompida, a compilação
+     * para com CancellationException.
+     */
+    public List<String> compile(String source, boolean recover, IntConsumer progress) {
+        return compile(source, recover, progress, new StringEmitter()).getOutput();
+    }
+
+    /** Como compile(String, boolean), devolvendo também as contagens de instruções. */
+    public CompileResult compileResult(String source, boolean recover) {
+        return compile(source, recover, null, new StringEmitter());
+    }
+
+    /**
+     * Como compile(String, boolean, IntConsumer), mas o código IL vai direto
+     * para o arquivo "il" durante a análise, sem ficar em memória; o arquivo
+     * só é criado (ou substituído) se a compilação terminar sem erros.
+     */
+    public CompileResult compile(String source, boolean recover, IntConsumer progress, Path il) throws IOException {
+        try (FileEmitter saida = new FileEmitter(il)) {
+            CompileResult result = compile(source, recover, progress, saida);
+            if (result.succeeded()) saida.concluir();
+            return result;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private CompileResult compile(String source, boolean recover, IntConsumer progress, Emitter saida) {
+        Workspace ws = acquire();
+        try {
+            ws.lexico.setInput(source);
+            ws.lexico.setRecovery(recover);
+            ws.sintatico.setRecovery(recover);
+            ws.sintatico.setProgressListener(progress);
+            try {
+                EnhancedSemantico semantico = semantico(saida);
+                List<String> out = ParserRunner.compile(ws.lexico, ws.sintatico, semantico);
+                List<AnalysisError> errors = ParserRunner.recoveredErrors(ws.lexico, ws.sintatico);
+                return errors.isEmpty() ? contar(out, semantico)
+                        : new CompileResult(ParserRunner.report(source, errors));
+            } catch (AnalysisError e) {
+                return new CompileResult(ParserRunner.report(source, e));
+            }
+        } finally {
+            ws.sintatico.setProgressListener(null);
+            release(ws, source.length());
+        }
+    }
+
+    /**
+     * Verifica o fonte a partir dos tokens mantidos por um IncrementalLexer,
+     * sem reler o fonte: só o sintático e o semântico rodam de novo, o que
+     * serve à verificação enquanto se digita. Quando "tokens" corresponde a
+     * "source", as mensagens são as de compile(source), mas sem o código IL,
+     * que nem é gerado (nem otimizado). Se o erro léxico da lista não se
+     * repetir no fonte, verifica o fonte do zero. Interromper a thread
+     * cancela a análise.
+     */
+    public List<String> compile(String source, IncrementalLexer tokens) {
+        TokenStream stream = new TokenStream();
+        int error = stream.load(source, tokens);
+
+        Workspace ws = acquire();
+        try {
+            ws.sintatico.setRecovery(false);
+            try {
+                List<String> out = ParserRunner.compile(stream, ws.sintatico, semantico(NullEmitter.INSTANCE));
+                if (error < 0) return out;
+            } catch (AnalysisError e) {
+                if (error < 0 || reachedBefore(e, stream)) return ParserRunner.report(source, e);
+            }
+
+            // a análise chegou ao erro léxico: relê só esse token para obter a mensagem
+            ws.lexico.setInput(source);
+            ws.lexico.setRecovery(false);
+            ws.lexico.setPosition(tokens.start(error));
+            try {
+                ws.lexico.nextTokenId();
+            } catch (LexicalError e) {
+                return ParserRunner.report(source, e);
+            }
+        } finally {
+            release(ws, source.length());
+        }
+        // o erro não se repetiu: os tokens não correspondem ao fonte, então
+        // vale a análise completa
+        return compile(source, false, null, NullEmitter.INSTANCE).getOutput();
+    }
+
+    /**
+     * Com os tokens cortados antes de um erro léxico, diz se "e" também
+     * aconteceria lendo do léxico, isto é, antes de pedir o token do erro:
+     * erros sintáticos até o último token e erros semânticos até o penúltimo
+     * (as ações do último só rodariam depois de ler o token seguinte).
+     */
+    private static boolean reachedBefore(AnalysisError e, TokenStream stream) {
+        int n = stream.size();
+        if (n == 0) return false;
+        int limit = e instanceof SemanticError ? stream.start(n - 1) : stream.end(n - 1);
+        return e.getPosition() < limit;
+    }
+
+    /** Compila direto do arquivo mapeado em memória; mesma saída de ParserRunner.run(Path). */
+    public List<String> compile(Path file) throws IOException {
+        return compile(file, false);
+    }
+
+    /** Como compile(Path), relatando todos os erros se recover = true. */
+    public List<String> compile(Path file, boolean recover) throws IOException {
+        return compile(file, recover, new StringEmitter()).getOutput();
+    }
+
+    /** Como compile(Path, boolean), gravando o código IL em "il" (ver compile(String, ..., Path)). */
+    public CompileResult compile(Path file, boolean recover, Path il) throws IOException {
+        try (FileEmitter saida = new FileEmitter(il)) {
+            CompileResult result = compile(file, recover, saida);
+            if (result.succeeded()) saida.concluir();
+            return result;
+        }
+    }
+
+    private CompileResult compile(Path file, boolean recover, Emitter saida) throws IOException {
+        Workspace ws = acquire();
+        // o reader é fechado aqui mesmo se a análise parar no meio do arquivo
+        try (Reader reader = TextFileIO.openMapped(file)) {
+            ws.lexico.setStreamInput(reader);
+            ws.lexico.setRecovery(recover);
+            ws.sintatico.setRecovery(recover);
+            try {
+                EnhancedSemantico semantico = semantico(saida);
+                List<String> out = ParserRunner.compile(ws.lexico, ws.sintatico, semantico);
+                List<AnalysisError> errors = ParserRunner.recoveredErrors(ws.lexico, ws.sintatico);
+                return errors.isEmpty() ? contar(out, semantico)
+                        : new CompileResult(ParserRunner.report(TextFileIO.read(file), errors));
+            } catch (AnalysisError e) {
+                return new CompileResult(ParserRunner.report(TextFileIO.read(file), e));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } finally {
+            release(ws, 0);
+        }
+    }
+
+    /** Listagem léxica; mesma saída de LexicalRunner.run(String). */
+    public List<String> tokenize(String source) {
+        return LexicalRunner.run(source);
+    }
+
+    private Workspace acquire() {
+        Workspace ws = workspaces.get();
+        if (ws.inUse) {
+            return new Workspace();
+        }
+        ws.inUse = true;
+        return ws;
+    }
+
+    private void release(Workspace ws, int sourceLength) {
+        if (ws != workspaces.get()) return;
+
+        ws.inUse = false;
+        if (sourceLength > POOL_LIMIT) {
+            workspaces.remove();
+        }
+    }
+
+    /** Estado reaproveitável de uma compilação, sempre confinado a uma thread. */
+    private static final class Workspace {
+        final Lexico lexico = new Lexico();
+        final Sintatico sintatico = new Sintatico();
+        boolean inUse;
+    }
+}
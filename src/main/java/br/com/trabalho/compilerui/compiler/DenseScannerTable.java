@@ -0,0 +1,59 @@
+package br.com.trabalho.compilerui.compiler;
+
+/**
+ * Tabela de transição do léxico expandida para acesso direto.
+ * Montada uma vez a partir da tabela compacta do GALS (SCANNER_TABLE),
+ * guarda o próximo estado em NEXT[state * ASCII + c] para c &lt; 128;
+ * caracteres fora do ASCII continuam na busca binária da tabela compacta.
+ */
+final class DenseScannerTable implements ScannerConstants {
+
+    static final int ASCII = 128;
+
+    private static final int STATES = SCANNER_TABLE_INDEXES.length - 1;
+
+    private static final short[] NEXT = build();
+
+    private DenseScannerTable() {}
+
+    private static short[] build() {
+        short[] next = new short[STATES * ASCII];
+        java.util.Arrays.fill(next, (short) -1);
+
+        for (int state = 0; state < STATES; state++) {
+            for (int i = SCANNER_TABLE_INDEXES[state]; i < SCANNER_TABLE_INDEXES[state + 1]; i++) {
+                int c = SCANNER_TABLE[i][0];
+                if (c < ASCII) {
+                    next[state * ASCII + c] = (short) SCANNER_TABLE[i][1];
+                }
+            }
+        }
+        return next;
+    }
+
+    static int nextState(char c, int state) {
+        if (c < ASCII) {
+            return NEXT[state * ASCII + c];
+        }
+        return compactNextState(c, state);
+    }
+
+    /** Busca binária original do GALS sobre a fatia do estado na tabela compacta. */
+    static int compactNextState(char c, int state) {
+        int start = SCANNER_TABLE_INDEXES[state];
+        int end   = SCANNER_TABLE_INDEXES[state + 1] - 1;
+
+        while (start <= end) {
+            int half = (start + end) / 2;
+
+            if (SCANNER_TABLE[half][0] == c)
+                return SCANNER_TABLE[half][1];
+            else if (SCANNER_TABLE[half][0] < c)
+                start = half + 1;
+            else  //(SCANNER_TABLE[half][0] > c)
+                end = half - 1;
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,14 @@
+package br.com.trabalho.compilerui.compiler;
+
+/**
+ * Destino do código IL gerado pelo SemanticContext: em memória
+ * (StringEmitter) ou direto no arquivo .il (FileEmitter). Erros de E/S
+ * chegam como UncheckedIOException, já que as ações semânticas só lançam
+ * SemanticError.
+ */
+public interface Emitter {
+
+    void emitir(String trecho);
+
+    void emitir(char c);
+}
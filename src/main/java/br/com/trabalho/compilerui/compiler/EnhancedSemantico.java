@@ -2,7 +2,21 @@ package br.com.trabalho.compilerui.compiler;
 
 public class EnhancedSemantico extends Semantico{
 
-    private final SemanticContext ctx = new SemanticContext();
+    private final SemanticContext ctx;
+
+    public EnhancedSemantico() {
+        this(new StringEmitter());
+    }
+
+    /** Semântico que escreve o código IL em "saida". */
+    public EnhancedSemantico(Emitter saida) {
+        this(saida, true);
+    }
+
+    /** Com otimizar = false o IL sai sem dobra de constantes e sem a otimização peephole. */
+    public EnhancedSemantico(Emitter saida, boolean otimizar) {
+        ctx = new SemanticContext(saida, otimizar);
+    }
 
     public SemanticContext getCtx() {
         return ctx;
@@ -51,19 +65,19 @@ public class EnhancedSemantico extends Semantico{
                 break;
 
             case 106: // "+" binário
-                ctx.operarAritmeticaBinaria("add");
+                ctx.operarAritmeticaBinaria(OpIL.ADD);
                 break;
 
             case 107: // "-" binário
-                ctx.operarAritmeticaBinaria("sub");
+                ctx.operarAritmeticaBinaria(OpIL.SUB);
                 break;
 
             case 108: // "*" binário
-                ctx.operarAritmeticaBinaria("mul");
+                ctx.operarAritmeticaBinaria(OpIL.MUL);
                 break;
 
             case 109: // "/" binário
-                ctx.operarAritmeticaBinaria("div");
+                ctx.operarAritmeticaBinaria(OpIL.DIV);
                 break;
 
             // ----------------------------------------------------
@@ -99,11 +113,11 @@ public class EnhancedSemantico extends Semantico{
                 break;
 
             case 113: // and
-                ctx.operarLogicoBinario("and");
+                ctx.operarLogicoBinario(OpIL.AND);
                 break;
 
             case 114: // or
-                ctx.operarLogicoBinario("or");
+                ctx.operarLogicoBinario(OpIL.OR);
                 break;
 
             case 118:
@@ -115,10 +129,7 @@ public class EnhancedSemantico extends Semantico{
 
             case 119:
                 // final da declaração: registra todos ids com o tipo atual
-                for (String id : ctx.consumirListaIdentificadores()) {
-                    ctx.declararSimbolo(id, ctx.getTipoAtual());
-                    // geração de .locals virá depois, quando formos montar o IL
-                }
+                ctx.declararIdentificadores();
                 break;
 
             // ----------------------------------------------------
@@ -137,24 +148,24 @@ public class EnhancedSemantico extends Semantico{
 
             case 122: { // atribuição: id = expressao
                 // recuperar id armazenado na lista_identificadores (deve ter exatamente 1)
-                java.util.List<String> ids = ctx.consumirListaIdentificadores();
-                String idAtrib = (ids.isEmpty() ? null : ids.get(0));
+                String idAtrib = ctx.consumirIdentificadorAtribuido();
 
                 if (idAtrib == null) {
-                    throw new SemanticError("atribuição sem identificador", token.getPosition());
+                    throw new SemanticError("atribuição sem identificador",
+                            token.getPosition(), token.getLine(), token.getColumn());
                 }
 
                 // delega para o helper que:
                 //  - verifica se o id foi declarado
                 //  - decide se precisa de conv.i8 (apenas se a variável for int64)
                 //  - gera o stloc correto
-                ctx.atribuirParaIdentificador(idAtrib, token.getPosition());
+                ctx.atribuirParaIdentificador(idAtrib, token);
                 break;
             }
 
             case 123:
                 // id em read(...)
-                ctx.lerEntradaEmId(token.getLexeme(), token.getPosition());
+                ctx.lerEntradaEmId(token.getLexeme(), token);
                 break;
 
             // ----------------------------------------------------
@@ -189,27 +200,12 @@ public class EnhancedSemantico extends Semantico{
             // ----------------------------------------------------
             // (3) Uso de identificador em expressão
             // ----------------------------------------------------
-            case 130: {
-                String id = token.getLexeme();
-                String tipo = ctx.tipoDe(id);
-
-                if (tipo == null) {
-                    throw new SemanticError("identificador nao declarado: " + id,
-                            token.getPosition());
-                }
-
-                // empilha tipo do id na pilha_tipos
-                ctx.pushTipo(tipo);
-
-                // gera código para carregar o valor armazenado em id
-                ctx.emitirLinha("ldloc " + id);
-
-                // se id for int64, converter para float64 em IL (conv.r8)
-                if ("int64".equals(tipo)) {
-                    ctx.emitirLinha("conv.r8");
-                }
+            case 130:
+                ctx.carregarIdentificador(token.getLexeme(), token);
                 break;
-            }
         }
+
+        // comando completo: o código acumulado vai para a saída
+        ctx.concluirAcao();
     }
 }
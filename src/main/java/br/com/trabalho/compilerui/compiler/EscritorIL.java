@@ -0,0 +1,75 @@
+package br.com.trabalho.compilerui.compiler;
+
+/**
+ * Transforma as instruções de um CodigoIL em texto IL, uma por linha,
+ * num Emitter. Os nomes e tipos das variáveis vêm da tabela de símbolos
+ * do SemanticContext.
+ */
+final class EscritorIL {
+
+    private final SemanticContext simbolos;
+    private final Emitter saida;
+
+    EscritorIL(SemanticContext simbolos, Emitter saida) {
+        this.simbolos = simbolos;
+        this.saida = saida;
+    }
+
+    void escrever(CodigoIL codigo) {
+        for (int i = 0; i < codigo.tamanho(); i++) {
+            int op = codigo.op(i);
+            int arg = codigo.arg(i);
+            switch (op) {
+                case OpIL.TEXTO:
+                    saida.emitir(codigo.operando(arg));
+                    break;
+                case OpIL.LDC_I8:
+                case OpIL.LDC_R8:
+                case OpIL.LDSTR:
+                    instrucao(op, codigo.operando(arg));
+                    break;
+                case OpIL.LOCALS:
+                    // .locals (tipo id)
+                    saida.emitir(".locals (");
+                    saida.emitir(simbolos.tipoDoSlot(arg).il());
+                    saida.emitir(' ');
+                    saida.emitir(simbolos.idDoSlot(arg));
+                    saida.emitir(')');
+                    break;
+                case OpIL.LDLOC:
+                case OpIL.STLOC:
+                    instrucao(op, simbolos.idDoSlot(arg));
+                    break;
+                case OpIL.CALL:
+                    instrucao(op, OpIL.CHAMADAS[arg]);
+                    break;
+                case OpIL.ROTULO:
+                    rotulo(arg);
+                    saida.emitir(':');
+                    break;
+                case OpIL.BR:
+                case OpIL.BRFALSE:
+                case OpIL.BRTRUE:
+                    saida.emitir(OpIL.nome(op));
+                    saida.emitir(' ');
+                    rotulo(arg);
+                    break;
+                default:
+                    saida.emitir(OpIL.nome(op));
+                    break;
+            }
+            saida.emitir('\n');
+        }
+    }
+
+    private void instrucao(int op, String operando) {
+        saida.emitir(OpIL.nome(op));
+        saida.emitir(' ');
+        saida.emitir(operando);
+    }
+
+    private void rotulo(int rotulo) {
+        saida.emitir('L');
+        saida.emitir(Integer.toString(rotulo));
+    }
+}
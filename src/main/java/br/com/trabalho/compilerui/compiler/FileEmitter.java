@@ -0,0 +1,96 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Emitter que grava o código IL (UTF-8) à medida que é gerado, num arquivo
+ * temporário ao lado do destino. concluir() põe o arquivo no lugar do
+ * destino; close() sem concluir() apaga o temporário, e um .il anterior
+ * continua intacto se a compilação falhar ou for cancelada.
+ */
+public class FileEmitter implements Emitter, Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path destino;
+    private final Path temporario;
+    private final Writer out;
+    private boolean concluido;
+
+    public FileEmitter(Path destino) throws IOException {
+        this.destino = destino;
+        // criado com as permissões padrão, como o .il gravado de uma vez
+        // (Files.createTempFile deixaria só o dono ler)
+        Path temporario;
+        OutputStream stream;
+        while (true) {
+            temporario = destino.resolveSibling(
+                    "." + destino.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                stream = Files.newOutputStream(temporario, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                break;
+            } catch (FileAlreadyExistsException e) {
+                // outro temporário com o mesmo nome: sorteia de novo
+            }
+        }
+        this.temporario = temporario;
+        this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    public Path getDestino() {
+        return destino;
+    }
+
+    @Override
+    public void emitir(String trecho) {
+        try {
+            out.write(trecho);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void emitir(char c) {
+        try {
+            out.write(c);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Fecha o arquivo e o move para o destino, substituindo o que houver lá. */
+    public void concluir() throws IOException {
+        out.close();
+        try {
+            Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+        concluido = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (concluido) return;
+        try {
+            out.close();
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lista de tokens de um texto que muda aos poucos (o documento do editor).
+ * A cada edição só o trecho afetado é relido: o léxico recomeça no primeiro
+ * token cuja leitura examinou a posição editada (a leitura antecipada do
+ * autômato pode passar de vários tokens: em "1.000" o léxico lê até o fim
+ * para devolver "1.0", "0", "0") e para assim que um token novo começa,
+ * depois da edição, no mesmo lugar (deslocado) em que começava um token
+ * antigo. Dali em diante o texto é o mesmo e o autômato sempre parte do
+ * estado 0 no início de um token, então o resto da lista antiga continua
+ * válido.
+ *
+ * Erros léxicos entram na lista como tokens de id ERROR (de um caractere),
+ * já que o léxico roda no modo de recuperação.
+ */
+public final class IncrementalLexer {
+
+    /** Id dos tokens que marcam um erro léxico. */
+    public static final int ERROR = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Lexico lexico = new Lexico();
+
+    private int[] ids    = new int[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends   = new int[INITIAL_CAPACITY];
+    // maior Lexico.getLookahead() entre este token e os anteriores (não
+    // decresce, para a busca binária; pode sobrar depois de uma edição, o
+    // que só faz reler um pouco mais)
+    private int[] reach  = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // tokens relidos na última edição (para medir o quanto foi reaproveitado)
+    private int relexed;
+
+    // tokens novos de uma edição, antes de entrarem na lista
+    private int[] newIds    = new int[64];
+    private int[] newStarts = new int[64];
+    private int[] newEnds   = new int[64];
+    private int[] newReach  = new int[64];
+    private int newSize;
+
+    public IncrementalLexer() {
+        lexico.setRecovery(true);
+    }
+
+    /** Descarta a lista e tokeniza o texto inteiro. */
+    public void reset(CharSequence text) {
+        size = 0;
+        edit(text, 0, 0, text.length());
+    }
+
+    /**
+     * Atualiza a lista depois de uma edição: em "offset" foram removidos
+     * "removed" caracteres e inseridos "inserted"; "text" já é o texto novo.
+     */
+    public void edit(CharSequence text, int offset, int removed, int inserted) {
+        int delta = inserted - removed;
+        int editEnd = offset + inserted; // fim da edição, no texto novo
+
+        // recomeça no primeiro token cuja leitura examinou "offset" (um token
+        // que termina na edição também: o léxico leu o caractere seguinte,
+        // ex.: "<" seguido de "-"), a partir de onde o léxico estava antes
+        // dele, isto é, do fim do token anterior que não é erro (os erros
+        // no meio do caminho são refeitos); sem token antes, do início
+        int restart = firstReachingPast(offset);
+        while (restart > 0 && ids[restart - 1] == ERROR) restart--;
+        int base = restart > 0 ? ends[restart - 1] : 0;
+
+        lexico.setStreamInput(new TextReader(text, base));
+        newSize = 0;
+        int old = restart;
+        int sync = -1;
+        int reportedErrors = 0;
+
+        try {
+            int id;
+            while ((id = lexico.nextTokenId()) != Constants.DOLLAR) {
+                // os erros pulados antes do token ficam com o alcance dele
+                int lookahead = base + lexico.getLookahead();
+                List<LexicalError> errors = lexico.getErrors();
+                for (; reportedErrors < errors.size(); reportedErrors++) {
+                    int pos = base + errors.get(reportedErrors).getPosition();
+                    if ((sync = findSync(pos, editEnd, delta, old)) >= 0) break;
+                    old = skipOld(pos - delta, old);
+                    addNew(ERROR, pos, pos + 1, lookahead);
+                }
+                if (sync >= 0) break;
+
+                int start = base + lexico.getTokenStart();
+                if ((sync = findSync(start, editEnd, delta, old)) >= 0) break;
+                old = skipOld(start - delta, old);
+                addNew(id, start, base + lexico.getTokenEnd(), lookahead);
+            }
+            if (sync < 0) {
+                // erros depois do último token
+                int lookahead = base + lexico.getLookahead();
+                List<LexicalError> errors = lexico.getErrors();
+                for (; reportedErrors < errors.size(); reportedErrors++) {
+                    int pos = base + errors.get(reportedErrors).getPosition();
+                    addNew(ERROR, pos, pos + 1, lookahead);
+                }
+            }
+        } catch (LexicalError e) {
+            throw new IllegalStateException(e); // no modo de recuperação o léxico não lança
+        }
+
+        splice(restart, sync < 0 ? size : sync, delta);
+        relexed = newSize;
+    }
+
+    /**
+     * Índice do token antigo que recomeça em "start" (texto novo), se o
+     * token novo já estiver depois da edição; senão -1.
+     */
+    private int findSync(int start, int editEnd, int delta, int old) {
+        if (start < editEnd) return -1;
+        int j = skipOld(start - delta, old);
+        return j < size && starts[j] == start - delta ? j : -1;
+    }
+
+    /** Primeiro token antigo, a partir de "from", que começa em "oldStart" ou depois. */
+    private int skipOld(int oldStart, int from) {
+        int j = from;
+        while (j < size && starts[j] < oldStart) j++;
+        return j;
+    }
+
+    /** Primeiro token cuja leitura (ou a de um anterior) examinou "offset" ou depois. */
+    private int firstReachingPast(int offset) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (reach[mid] <= offset) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private void addNew(int id, int start, int end, int lookahead) {
+        if (newSize == newIds.length) {
+            int capacity = newSize * 2;
+            newIds    = Arrays.copyOf(newIds, capacity);
+            newStarts = Arrays.copyOf(newStarts, capacity);
+            newEnds   = Arrays.copyOf(newEnds, capacity);
+            newReach  = Arrays.copyOf(newReach, capacity);
+        }
+        newIds[newSize]    = id;
+        newStarts[newSize] = start;
+        newEnds[newSize]   = end;
+        newReach[newSize]  = lookahead;
+        newSize++;
+    }
+
+    /** Troca os tokens antigos [from, to) pelos novos e desloca os seguintes. */
+    private void splice(int from, int to, int delta) {
+        int tail = size - to;
+        int newTotal = from + newSize + tail;
+        if (newTotal > ids.length) {
+            int capacity = Math.max(ids.length * 2, newTotal);
+            ids    = Arrays.copyOf(ids, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends   = Arrays.copyOf(ends, capacity);
+            reach  = Arrays.copyOf(reach, capacity);
+        }
+
+        int dest = from + newSize;
+        System.arraycopy(ids, to, ids, dest, tail);
+        System.arraycopy(starts, to, starts, dest, tail);
+        System.arraycopy(ends, to, ends, dest, tail);
+        System.arraycopy(reach, to, reach, dest, tail);
+        if (delta != 0) {
+            for (int i = dest; i < newTotal; i++) {
+                starts[i] += delta;
+                ends[i] += delta;
+                reach[i] += delta;
+            }
+        }
+
+        System.arraycopy(newIds, 0, ids, from, newSize);
+        System.arraycopy(newStarts, 0, starts, from, newSize);
+        System.arraycopy(newEnds, 0, ends, from, newSize);
+
+        // alcance acumulado: os novos e, enquanto ficarem abaixo, os seguintes
+        int max = from > 0 ? reach[from - 1] : 0;
+        for (int i = 0; i < newSize; i++) {
+            max = Math.max(max, newReach[i]);
+            reach[from + i] = max;
+        }
+        for (int i = dest; i < newTotal && reach[i] < max; i++) {
+            reach[i] = max;
+        }
+        size = newTotal;
+    }
+
+    /**
+     * Cópia independente da lista atual, para ser lida em outra thread
+     * enquanto o documento continua mudando.
+     */
+    public IncrementalLexer copy() {
+        IncrementalLexer copy = new IncrementalLexer();
+        copy.ids    = Arrays.copyOf(ids, Math.max(size, 1));
+        copy.starts = Arrays.copyOf(starts, Math.max(size, 1));
+        copy.ends   = Arrays.copyOf(ends, Math.max(size, 1));
+        copy.reach  = Arrays.copyOf(reach, Math.max(size, 1));
+        copy.size   = size;
+        return copy;
+    }
+
+    public int size() { return size; }
+
+    public int id(int i)    { return ids[i]; }
+    public int start(int i) { return starts[i]; }
+    public int end(int i)   { return ends[i]; }
+
+    /** Quantos tokens foram relidos na última edição. */
+    public int relexed() { return relexed; }
+
+    /** Índice do token que contém "offset" ou, se cair entre tokens, do seguinte. */
+    public int tokenAt(int offset) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ends[mid] <= offset) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Lê o texto a partir de "from", sem copiá-lo inteiro. */
+    private static final class TextReader extends Reader {
+        private final CharSequence text;
+        private int next;
+
+        TextReader(CharSequence text, int from) {
+            this.text = text;
+            this.next = from;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            int n = Math.min(len, text.length() - next);
+            if (n <= 0) return len == 0 ? 0 : -1;
+            for (int i = 0; i < n; i++) {
+                cbuf[off + i] = text.charAt(next + i);
+            }
+            next += n;
+            return n;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
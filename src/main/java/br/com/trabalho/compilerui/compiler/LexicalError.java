@@ -7,6 +7,11 @@ public class LexicalError extends AnalysisError
         super(msg, position);
     }
 
+    public LexicalError(String msg, int position, int line, int column)
+    {
+        super(msg, position, line, column);
+    }
+
     public LexicalError(String msg)
     {
         super(msg);
@@ -1,5 +1,11 @@
 package br.com.trabalho.compilerui.compiler;
 
+import br.com.trabalho.compilerui.io.TextFileIO;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -8,11 +14,6 @@ import java.util.Set;
 /** Executa o léxico e formata a saída no padrão do enunciado. */
 public final class LexicalRunner {
 
-    /** Símbolos “simples” apenas para rotular como "símbolo especial". */
-    private static final Set<String> SPECIAL_SYMBOLS = Set.of(
-            "+","-","*","/","(",")","[","]","{","}","^",".",":","?","|","=",",",";","<",">"
-    );
-
     /** Conjunto de IDs que o GALS usa para palavras-reservadas. */
     private static final Set<Integer> RESERVED_IDS = new HashSet<>();
     static {
@@ -21,61 +22,195 @@ public final class LexicalRunner {
         }
     }
 
+    private static final String HEADER = String.format("%-5s %-18s %s", "linha", "classe", "lexema");
+    private static final String SUCESSO = "programa compilado com sucesso";
+
     private LexicalRunner() {}
 
     public static List<String> run(String source) {
         List<String> out = new ArrayList<>();
-        Lexico lex = new Lexico();
-        lex.setInput(new java.io.StringReader(source));
+        TokenStream tokens = new TokenStream();
+        StringBuilder line = new StringBuilder(64);
 
         // Cabeçalho como no PDF
-        out.add(String.format("%-5s %-18s %s", "linha", "classe", "lexema"));
+        out.add(HEADER);
 
         try {
-            while (true) {
-                Token t = lex.nextToken();
-                if (t == null) break;
-
-                String classe = classify(t);
-                if (classe == null) continue;
-
-                int linha = toLineNumber(source, t.getPosition());
-                out.add(String.format("%-5d %-18s %s", linha, classe, t.getLexeme()));
+            tokens.tokenize(source);
+
+            for (int i = 0; i < tokens.size(); i++) {
+                String classe = classify(tokens.id(i));
+                line.setLength(0);
+                appendPrefix(line, tokens.line(i), classe);
+                line.append(source, tokens.start(i), tokens.end(i));
+                out.add(line.toString());
             }
-            out.add("programa compilado com sucesso");
+            out.add(SUCESSO);
 
         } catch (LexicalError e) {
             // Exibir somente o erro (não listar tokens anteriores)
             out.clear();
+            out.add(errorLine(e));
+        }
+
+        return out;
+    }
 
-            int pos = e.getPosition();
-            int linha = toLineNumber(source, pos);
-            String msg = normalizeMsg(e.getMessage());
-
-            // tenta extrair classe do erro
-            if (msg.contains("cstring") || msg.contains("string")) {
-                out.add(String.format("linha %d: constante_string inválida", linha));
-            } else if (msg.contains("cint")) {
-                out.add(String.format("linha %d: constante_int inválida", linha));
-            } else if (msg.contains("cfloat")) {
-                out.add(String.format("linha %d: constante_float inválida", linha));
-            } else if (msg.contains("identificador")) {
-                out.add(String.format("linha %d: identificador inválido", linha));
-            } else if (msg.equals("símbolo inválido")) {
-                out.add(String.format("linha %d: símbolo inválido", linha));
-            } else {
-                out.add(String.format("linha %d: erro léxico", linha));
+    /**
+     * Com recover = true o léxico não para no primeiro erro: a saída traz uma
+     * linha por erro léxico, na ordem do fonte, no mesmo formato de run(String).
+     * Sem erros, a saída é a listagem normal.
+     */
+    public static List<String> run(String source, boolean recover) {
+        if (!recover) return run(source);
+
+        List<String> out = new ArrayList<>();
+        Lexico lexico = new Lexico();
+        lexico.setInput(source);
+        lexico.setRecovery(true);
+        StringBuilder line = new StringBuilder(64);
+
+        out.add(HEADER);
+        try {
+            int id;
+            while ((id = lexico.nextTokenId()) != Constants.DOLLAR) {
+                line.setLength(0);
+                appendPrefix(line, lexico.getTokenLine(), classify(id));
+                line.append(source, lexico.getTokenStart(), lexico.getTokenEnd());
+                out.add(line.toString());
             }
+        } catch (LexicalError e) {
+            throw new IllegalStateException(e); // no modo de recuperação o léxico não lança
         }
 
+        if (lexico.getErrors().isEmpty()) {
+            out.add(SUCESSO);
+        } else {
+            out.clear();
+            for (LexicalError e : lexico.getErrors()) {
+                out.add(errorLine(e));
+            }
+        }
         return out;
     }
 
-    /** Classificação sem depender de nomes t_pr_* ou t_TOKEN_*. */
-    private static String classify(Token t) {
-        int id = t.getId();
-        String lx = t.getLexeme();
+    /**
+     * Versão em fluxo de run(String): escreve cada linha em "out" (terminada
+     * em '\n') assim que o token é reconhecido, sem montar a lista inteira.
+     * Como a saída já foi escrita, num erro léxico os tokens anteriores
+     * permanecem e a linha do erro vem por último.
+     *
+     * @return true se não houve erro léxico
+     */
+    public static boolean run(String source, Appendable out) throws IOException {
+        Lexico lexico = new Lexico();
+        lexico.setInput(source);
+        return write(lexico, out);
+    }
+
+    /**
+     * Modo de memória limitada: o fonte é lido aos poucos do "in" (janela
+     * deslizante do léxico), então listar um arquivo de vários GB usa memória
+     * proporcional ao maior token. Para arquivos, passe um Writer com buffer.
+     */
+    public static boolean run(Reader in, Appendable out) throws IOException {
+        Lexico lexico = new Lexico();
+        lexico.setStreamInput(in);
+        try {
+            return write(lexico, out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 
+    /** Lista os tokens do arquivo (mapeado em memória) direto em "out". */
+    public static boolean run(Path file, Appendable out) throws IOException {
+        try (Reader in = TextFileIO.openMapped(file)) {
+            return run(in, out);
+        }
+    }
+
+    private static boolean write(Lexico lexico, Appendable out) throws IOException {
+        out.append(HEADER).append('\n');
+        try {
+            int id;
+            while ((id = lexico.nextTokenId()) != Constants.DOLLAR) {
+                String classe = classify(id);
+                appendPrefix(out, lexico.getTokenLine(), classe);
+                lexico.appendLexeme(out);
+                out.append('\n');
+            }
+            out.append(SUCESSO).append('\n');
+            return true;
+
+        } catch (LexicalError e) {
+            out.append(errorLine(e)).append('\n');
+            return false;
+        }
+    }
+
+    /** Equivale a String.format("%-5d %-18s ", linha, classe), sem Formatter. */
+    private static void appendPrefix(Appendable out, int linha, String classe) throws IOException {
+        int digits = appendInt(out, linha);
+        pad(out, 5 - digits);
+        out.append(' ').append(classe);
+        pad(out, 18 - classe.length());
+        out.append(' ');
+    }
+
+    private static void appendPrefix(StringBuilder out, int linha, String classe) {
+        try {
+            appendPrefix((Appendable) out, linha, classe);
+        } catch (IOException e) {
+            throw new AssertionError(e); // StringBuilder não lança IOException
+        }
+    }
+
+    /** Escreve o número em decimal; devolve quantos caracteres escreveu. */
+    private static int appendInt(Appendable out, int value) throws IOException {
+        if (value < 0) {
+            out.append('-');
+            return 1 + appendInt(out, -value);
+        }
+        int divisor = 1;
+        int digits = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+            digits++;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + value / divisor % 10));
+        }
+        return digits;
+    }
+
+    private static void pad(Appendable out, int spaces) throws IOException {
+        for (int i = 0; i < spaces; i++) out.append(' ');
+    }
+
+    /** Linha única de erro, no formato do enunciado. */
+    private static String errorLine(LexicalError e) {
+        int linha = e.getLine();
+        String msg = normalizeMsg(e.getMessage());
+
+        // tenta extrair classe do erro
+        if (msg.contains("cstring") || msg.contains("string")) {
+            return String.format("linha %d: constante_string inválida", linha);
+        } else if (msg.contains("cint")) {
+            return String.format("linha %d: constante_int inválida", linha);
+        } else if (msg.contains("cfloat")) {
+            return String.format("linha %d: constante_float inválida", linha);
+        } else if (msg.contains("identificador")) {
+            return String.format("linha %d: identificador inválido", linha);
+        } else if (msg.equals("símbolo inválido")) {
+            return String.format("linha %d: símbolo inválido", linha);
+        } else {
+            return String.format("linha %d: erro léxico", linha);
+        }
+    }
+
+    /** Classificação sem depender de nomes t_pr_* ou t_TOKEN_*. */
+    private static String classify(int id) {
         if (id == Constants.t_identificador) return "identificador";
         if (id == Constants.t_cint)         return "constante_int";
         if (id == Constants.t_cfloat)       return "constante_float";
@@ -84,29 +219,10 @@ public final class LexicalRunner {
         // Palavras-reservadas: qualquer ID mapeado via SPECIAL_CASES
         if (RESERVED_IDS.contains(id)) return "palavra reservada";
 
-        // Símbolos/operadores: trate tudo que sobrar como “símbolo especial”
-        if (lx != null && !lx.isEmpty()) {
-            // cobre os simples e também operadores compostos (==, ~=, <- etc.)
-            if (SPECIAL_SYMBOLS.contains(lx) || "==".equals(lx) || "~=".equals(lx) || "<-".equals(lx)) {
-                return "símbolo especial";
-            }
-            // por segurança, qualquer outro token não-classificado cai aqui
-            return "símbolo especial";
-        }
-
-        // fallback (não deve ocorrer)
+        // Símbolos/operadores (simples e compostos: ==, ~=, <- etc.)
         return "símbolo especial";
     }
 
-    /** Converte offset (0-based) em número de linha (1-based). */
-    private static int toLineNumber(String src, int pos) {
-        if (pos <= 0) return 1;
-        int lines = 1;
-        int limit = Math.min(pos, src.length());
-        for (int i = 0; i < limit; i++) if (src.charAt(i) == '\n') lines++;
-        return lines;
-    }
-
     /** Ajusta mensagens para o formato do PDF da Parte 3. */
     private static String normalizeMsg(String msg) {
         if (msg == null || msg.isEmpty()) return "erro léxico";
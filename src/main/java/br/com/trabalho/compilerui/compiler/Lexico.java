@@ -1,9 +1,53 @@
 package br.com.trabalho.compilerui.compiler;
 
+import br.com.trabalho.compilerui.io.TextFileIO;
+
 public class Lexico implements Constants
 {
+    /** Tamanho inicial da janela de caracteres usada no modo streaming. */
+    private static final int BUFFER_SIZE = 8192;
+
     private int position;
-    private String input;
+
+    /*
+     * A entrada fica em "buffer": buffer[0] corresponde ao offset absoluto
+     * bufferStart e há bufferLength caracteres válidos. Em setInput o texto
+     * inteiro é carregado de uma vez; em setStreamInput a janela é reabastecida
+     * sob demanda a partir de "reader", descartando o que já foi consumido.
+     */
+    private char[] buffer;
+    private int bufferStart;
+    private int bufferLength;
+    private java.io.Reader reader;
+    private int tokenStart;
+    private int tokenEnd;
+
+    /*
+     * Fim (exclusivo) do trecho examinado pelo último nextTokenId, contando
+     * os tokens ignorados e os erros pulados antes do token; ler o fim da
+     * entrada conta como examinar mais um caractere.
+     */
+    private int lookahead;
+
+    /*
+     * Linha (a partir de 1) e offset do início da linha na posição corrente.
+     * São atualizados só quando um trecho é consumido de vez (espaços ou
+     * token aceito), nunca durante a leitura antecipada do autômato.
+     */
+    private int line;
+    private int lineStart;
+    private int tokenLine;
+    private int tokenColumn;
+
+    private boolean denseTable = true;
+
+    /*
+     * Modo de recuperação: em vez de lançar o LexicalError, o erro é
+     * guardado em "errors" e a análise continua a partir do caractere que
+     * o autômato rejeitou (ou do seguinte ao início do token, se for o mesmo).
+     */
+    private boolean recovery;
+    private java.util.List<LexicalError> errors = new java.util.ArrayList<LexicalError>();
 
     public Lexico()
     {
@@ -17,94 +61,318 @@ public class Lexico implements Constants
 
     public void setInput(java.io.Reader input)
     {
-        StringBuffer bfr = new StringBuffer();
+        char[] bfr = new char[BUFFER_SIZE];
+        int length = 0;
         try
         {
-            int c = input.read();
-            while (c != -1)
+            int n;
+            while ((n = input.read(bfr, length, bfr.length - length)) != -1)
             {
-                bfr.append((char)c);
-                c = input.read();
+                length += n;
+                if (length == bfr.length)
+                    bfr = java.util.Arrays.copyOf(bfr, bfr.length * 2);
             }
-            this.input = bfr.toString();
         }
         catch (java.io.IOException e)
         {
             e.printStackTrace();
         }
 
-        setPosition(0);
+        buffer = bfr;
+        bufferStart = 0;
+        bufferLength = length;
+        reader = null;
+        rewind();
+    }
+
+    /** Carrega o texto inteiro, reaproveitando o buffer anterior se couber. */
+    public void setInput(String input)
+    {
+        int length = input.length();
+        if (buffer == null || buffer.length < length)
+            buffer = new char[Math.max(length, BUFFER_SIZE)];
+        input.getChars(0, length, buffer, 0);
+
+        bufferStart = 0;
+        bufferLength = length;
+        reader = null;
+        rewind();
+    }
+
+    /**
+     * Modo streaming: lê a entrada aos poucos, numa janela deslizante.
+     * O primeiro token fica disponível sem esperar o fim da leitura e a
+     * memória usada é proporcional ao maior token, não ao tamanho do fonte.
+     * Nesse modo setPosition só aceita posições dentro da janela atual.
+     */
+    public void setStreamInput(java.io.Reader input)
+    {
+        buffer = new char[BUFFER_SIZE];
+        bufferStart = 0;
+        bufferLength = 0;
+        reader = input;
+        rewind();
+    }
+
+    /**
+     * Lê o fonte direto do arquivo, mapeado em memória, no modo streaming:
+     * o texto não é copiado inteiro para o heap.
+     */
+    public void setInput(java.nio.file.Path file) throws java.io.IOException
+    {
+        setStreamInput(TextFileIO.openMapped(file));
+    }
+
+    /**
+     * Escolhe a tabela de transição: a densa (padrão), com acesso direto
+     * por estado e caractere ASCII, ou a compacta gerada pelo GALS.
+     */
+    public void setDenseTable(boolean denseTable)
+    {
+        this.denseTable = denseTable;
+    }
+
+    /**
+     * Liga o modo de recuperação: nextToken/nextTokenId não lançam mais
+     * LexicalError; cada erro vai para getErrors() e o token inválido é
+     * pulado, de modo que uma passada encontra todos os erros léxicos.
+     */
+    public void setRecovery(boolean recovery)
+    {
+        this.recovery = recovery;
+    }
+
+    /** Erros guardados no modo de recuperação desde o último setInput, na ordem do fonte. */
+    public java.util.List<LexicalError> getErrors()
+    {
+        return java.util.Collections.unmodifiableList(errors);
     }
 
     public void setPosition(int pos)
     {
+        if (pos < bufferStart || pos > bufferStart + bufferLength)
+            throw new IllegalArgumentException("Posição fora da janela de entrada: " + pos);
+
+        if (pos >= position)
+        {
+            countLines(position, pos);
+        }
+        else
+        {
+            for (int i = pos; i < position; i++)
+                if (buffer[i - bufferStart] == '\n')
+                    line--;
+
+            int i = pos;
+            while (i > bufferStart && buffer[i - 1 - bufferStart] != '\n')
+                i--;
+            lineStart = i;
+        }
+
         position = pos;
+        tokenStart = tokenEnd = pos;
+        tokenLine = line;
+        tokenColumn = pos - lineStart + 1;
+    }
+
+    private void rewind()
+    {
+        errors.clear();
+        position = 0;
+        line = 1;
+        lineStart = 0;
+        setPosition(0);
+    }
+
+    /** Avança line/lineStart pelas quebras de linha em [from, to). */
+    private void countLines(int from, int to)
+    {
+        for (int i = from; i < to; i++)
+        {
+            if (buffer[i - bufferStart] == '\n')
+            {
+                line++;
+                lineStart = i + 1;
+            }
+        }
     }
 
     public Token nextToken() throws LexicalError
     {
-        if ( ! hasInput() )
-            return null;
+        int token = nextTokenId();
 
-        int start = position;
+        if (token == DOLLAR)
+            return null;
+        else
+            return new Token(token, getLexeme(), tokenStart, tokenLine, tokenColumn);
+    }
 
-        int state = 0;
-        int lastState = 0;
-        int endState = -1;
-        int end = -1;
+    /**
+     * Versão de nextToken sem alocação: devolve só o id do próximo token,
+     * ou DOLLAR no fim da entrada. O trecho reconhecido fica entre
+     * getTokenStart() e getTokenEnd(); o lexema só é criado em getLexeme().
+     */
+    public int nextTokenId() throws LexicalError
+    {
+        lookahead = position;
 
-        while (hasInput())
+        // tokens ignorados (espaços e comentários) são pulados neste laço
+        while (true)
         {
-            lastState = state;
-            state = nextState(nextChar(), state);
+            skipWhitespace();
+
+            if ( ! hasInput() )
+            {
+                lookahead = position + 1;
+                tokenStart = tokenEnd = position;
+                tokenLine = line;
+                tokenColumn = position - lineStart + 1;
+                return DOLLAR;
+            }
 
-            if (state < 0)
-                break;
+            int start = position;
+            tokenStart = start;
+            tokenLine = line;
+            tokenColumn = start - lineStart + 1;
 
-            else
+            int state = 0;
+            int lastState = 0;
+            int endState = -1;
+            int end = -1;
+
+            while (hasInput())
             {
-                if (tokenForState(state) >= 0)
+                lastState = state;
+                state = nextState(nextChar(), state);
+
+                if (state < 0)
+                    break;
+
+                else
                 {
-                    endState = state;
-                    end = position;
+                    if (tokenForState(state) >= 0)
+                    {
+                        endState = state;
+                        end = position;
+                    }
                 }
             }
-        }
-        if (endState < 0 || (endState != state && tokenForState(lastState) == -2))
-            throw new LexicalError(SCANNER_ERROR[lastState], start);
+            // parou num caractere rejeitado (já lido) ou no fim da entrada
+            lookahead = Math.max(lookahead, state < 0 ? position : position + 1);
+            if (endState < 0 || (endState != state && tokenForState(lastState) == -2))
+            {
+                LexicalError error = new LexicalError(SCANNER_ERROR[lastState], start, tokenLine, tokenColumn);
+                if ( ! recovery )
+                    throw error;
 
-        position = end;
+                errors.add(error);
 
-        int token = tokenForState(endState);
+                // ressincroniza no caractere rejeitado, sempre avançando ao menos um
+                int resync = state < 0 ? position - 1 : position;
+                resync = Math.max(start + 1, resync);
+                position = resync;
+                countLines(start, resync);
+                continue;
+            }
 
-        if (token == 0)
-            return nextToken();
-        else
-        {
-            String lexeme = input.substring(start, end);
-            token = lookupToken(token, lexeme);
-            return new Token(token, lexeme, start);
+            position = end;
+            tokenEnd = end;
+            countLines(start, end);
+
+            int token = tokenForState(endState);
+
+            if (token != 0)
+                return ReservedWords.lookup(token, buffer, start - bufferStart, end - start);
         }
     }
 
-    private int nextState(char c, int state)
+    /**
+     * Atalho para sequências de espaço, tab e quebra de linha: cada um
+     * desses caracteres é um token ignorado de um só caractere no autômato,
+     * então consumi-los aqui dá o mesmo resultado sem passar pela tabela.
+     */
+    private void skipWhitespace()
     {
-        int start = SCANNER_TABLE_INDEXES[state];
-        int end   = SCANNER_TABLE_INDEXES[state+1]-1;
-
-        while (start <= end)
+        while (true)
         {
-            int half = (start+end)/2;
+            tokenStart = position;
+            if ( ! hasInput() )
+                return;
 
-            if (SCANNER_TABLE[half][0] == c)
-                return SCANNER_TABLE[half][1];
-            else if (SCANNER_TABLE[half][0] < c)
-                start = half+1;
-            else  //(SCANNER_TABLE[half][0] > c)
-                end = half-1;
+            char c = buffer[position - bufferStart];
+            if (c == ' ' || c == '\t')
+            {
+                position++;
+            }
+            else if (c == '\n')
+            {
+                position++;
+                line++;
+                lineStart = position;
+            }
+            else
+                return;
         }
+    }
+
+    public int getTokenStart()
+    {
+        return tokenStart;
+    }
 
-        return -1;
+    public int getTokenEnd()
+    {
+        return tokenEnd;
+    }
+
+    /**
+     * Fim do trecho que o último nextTokenId examinou (inclui a leitura
+     * antecipada do autômato): o resultado só depende do texto antes dessa
+     * posição, e é maior que o tamanho da entrada se o fim dela foi lido.
+     */
+    public int getLookahead()
+    {
+        return lookahead;
+    }
+
+    /** Linha (a partir de 1) onde começa o último token. */
+    public int getTokenLine()
+    {
+        return tokenLine;
+    }
+
+    /** Coluna (a partir de 1) onde começa o último token. */
+    public int getTokenColumn()
+    {
+        return tokenColumn;
+    }
+
+    /** Lexema do último token; no modo streaming só vale até o próximo nextTokenId(). */
+    public String getLexeme()
+    {
+        return new String(buffer, tokenStart - bufferStart, tokenEnd - tokenStart);
+    }
+
+    /** Copia o lexema do último token para "out" sem criar uma String. */
+    public void appendLexeme(Appendable out) throws java.io.IOException
+    {
+        int offset = tokenStart - bufferStart;
+        int length = tokenEnd - tokenStart;
+
+        if (out instanceof java.io.Writer)
+            ((java.io.Writer) out).write(buffer, offset, length);
+        else if (out instanceof StringBuilder)
+            ((StringBuilder) out).append(buffer, offset, length);
+        else
+            out.append(java.nio.CharBuffer.wrap(buffer, offset, length));
+    }
+
+    private int nextState(char c, int state)
+    {
+        if (denseTable)
+            return DenseScannerTable.nextState(c, state);
+        else
+            return DenseScannerTable.compactNextState(c, state);
     }
 
     private int tokenForState(int state)
@@ -138,13 +406,50 @@ public class Lexico implements Constants
 
     private boolean hasInput()
     {
-        return position < input.length();
+        return position < bufferStart + bufferLength || fill();
+    }
+
+    /**
+     * Reabastece a janela no modo streaming. Tudo antes do início do token
+     * corrente é descartado; se o token não couber, a janela dobra de tamanho.
+     */
+    private boolean fill()
+    {
+        if (reader == null)
+            return false;
+
+        int discard = tokenStart - bufferStart;
+        if (discard > 0)
+        {
+            System.arraycopy(buffer, discard, buffer, 0, bufferLength - discard);
+            bufferStart += discard;
+            bufferLength -= discard;
+        }
+        if (bufferLength == buffer.length)
+            buffer = java.util.Arrays.copyOf(buffer, buffer.length * 2);
+
+        try
+        {
+            int n = reader.read(buffer, bufferLength, buffer.length - bufferLength);
+            if (n == -1)
+            {
+                reader.close();
+                reader = null;
+                return false;
+            }
+            bufferLength += n;
+            return true;
+        }
+        catch (java.io.IOException e)
+        {
+            throw new java.io.UncheckedIOException(e);
+        }
     }
 
     private char nextChar()
     {
         if (hasInput())
-            return input.charAt(position++);
+            return buffer[position++ - bufferStart];
         else
             return (char) -1;
     }
@@ -0,0 +1,42 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.util.Arrays;
+
+/**
+ * Índice das quebras de linha de um fonte, montado uma única vez.
+ * Converter offset em linha vira uma busca binária nos offsets dos '\n'
+ * em vez de recontar o texto desde o início a cada token ou erro.
+ */
+public final class LineIndex {
+
+    private final int[] newlines;
+    private final int count;
+    private final int length;
+
+    public LineIndex(CharSequence src) {
+        int[] offsets = new int[64];
+        int n = 0;
+        for (int i = 0; i < src.length(); i++) {
+            if (src.charAt(i) == '\n') {
+                if (n == offsets.length) offsets = Arrays.copyOf(offsets, n * 2);
+                offsets[n++] = i;
+            }
+        }
+        this.newlines = offsets;
+        this.count = n;
+        this.length = src.length();
+    }
+
+    /** Converte offset (0-based) em número de linha (1-based). */
+    public int lineOf(int pos) {
+        int limit = Math.min(pos, length);
+        // quantidade de '\n' antes de limit
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (newlines[mid] < limit) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo + 1;
+    }
+}
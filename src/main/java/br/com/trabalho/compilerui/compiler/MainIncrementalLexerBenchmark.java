@@ -0,0 +1,48 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.util.Random;
+
+/**
+ * Compara o custo por edição do IncrementalLexer com tokenizar o texto
+ * inteiro de novo, digitando e apagando caracteres em posições aleatórias.
+ * Uso: MainIncrementalLexerBenchmark [comandos] [edições]
+ */
+public class MainIncrementalLexerBenchmark {
+
+    public static void main(String[] args) {
+        int comandos = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int edicoes  = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+
+        StringBuilder texto = new StringBuilder(BenchmarkSources.programa(comandos));
+        IncrementalLexer lexer = new IncrementalLexer();
+        lexer.reset(texto);
+        System.out.printf("fonte: %d caracteres, %d tokens%n", texto.length(), lexer.size());
+
+        Random rnd = new Random(7);
+        long relidos = 0;
+        long inicio = System.nanoTime();
+        for (int i = 0; i < edicoes; i++) {
+            int offset = rnd.nextInt(texto.length());
+            if (i % 2 == 0) {
+                texto.insert(offset, 'x');
+                lexer.edit(texto, offset, 0, 1);
+            } else {
+                texto.deleteCharAt(offset);
+                lexer.edit(texto, offset, 1, 0);
+            }
+            relidos += lexer.relexed();
+        }
+        long incremental = System.nanoTime() - inicio;
+
+        IncrementalLexer completo = new IncrementalLexer();
+        inicio = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            completo.reset(texto);
+        }
+        long total = (System.nanoTime() - inicio) / 20;
+
+        System.out.printf("incremental: %8.1f us/edição (%.1f tokens relidos por edição)%n",
+                incremental / 1e3 / edicoes, (double) relidos / edicoes);
+        System.out.printf("texto todo:  %8.1f us/edição%n", total / 1e3);
+    }
+}
@@ -0,0 +1,98 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Teste do IncrementalLexer: depois de cada edição aleatória (inserir,
+ * apagar ou trocar trechos, com pedaços escolhidos para mudar tokens
+ * vizinhos: dígitos, ".", "-", aspas, chaves, quebras de linha...) a lista
+ * de tokens deve ser igual à de tokenizar o texto inteiro de novo, e a
+ * verificação a partir dela (CompilerPipeline.compile(String, IncrementalLexer),
+ * a verificação enquanto se digita) deve dar as mensagens da compilação do
+ * texto, sem o código IL.
+ * Uso: MainIncrementalLexerTest [edições] [semente]
+ */
+public class MainIncrementalLexerTest {
+
+    private static final String[] PEDACOS = {
+            "1", "0", "00", ".", "1.000", "2.5", "x", "ab", "Ab", "_", "_1", "\"", "\"s\"",
+            "{", "}", "-", "--", "\n", " ", "<", "=", "==", "~", "~=", "(", ")", ";", ",",
+            "begin", "end", "if", "int", "@", "#",
+    };
+
+    public static void main(String[] args) {
+        int edicoes = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long semente = args.length > 1 ? Long.parseLong(args[1]) : 1;
+
+        // leitura antecipada de vários tokens: "1.000" é "1.0", "0", "0", mas "1.0001" é um token só
+        StringBuilder texto = new StringBuilder("x = 1.000");
+        IncrementalLexer lexer = new IncrementalLexer();
+        lexer.reset(texto);
+        texto.append('1');
+        lexer.edit(texto, texto.length() - 1, 0, 1);
+        comparar(lexer, texto, "inserção de \"1\" no fim de \"x = 1.000\"");
+
+        Random rnd = new Random(semente);
+        texto = new StringBuilder(BenchmarkSources.programa(20));
+        lexer.reset(texto);
+        for (int i = 0; i < edicoes; i++) {
+            int offset = rnd.nextInt(texto.length() + 1);
+            int removidos = rnd.nextInt(3) == 0 ? 0 : Math.min(rnd.nextInt(6), texto.length() - offset);
+            String inserido = rnd.nextInt(4) == 0 ? "" : PEDACOS[rnd.nextInt(PEDACOS.length)];
+            String antes = texto.toString();
+
+            texto.replace(offset, offset + removidos, inserido);
+            lexer.edit(texto, offset, removidos, inserido.length());
+            String contexto = "edição " + i + " em " + offset + " (-" + removidos + " +\""
+                    + inserido + "\") sobre:\n" + antes;
+            comparar(lexer, texto, contexto);
+            if (i % 10 == 0) {
+                compilar(lexer, texto.toString(), contexto);
+            }
+
+            // o texto não cresce nem some sem limite
+            if (texto.length() > 4_000 || texto.length() < 20) {
+                texto = new StringBuilder(BenchmarkSources.programa(20));
+                lexer.reset(texto);
+            }
+        }
+        System.out.printf("%d edições: tokens iguais aos do texto todo e verificação com as mensagens da compilação%n", edicoes);
+    }
+
+    private static void comparar(IncrementalLexer lexer, CharSequence texto, String contexto) {
+        IncrementalLexer completo = new IncrementalLexer();
+        completo.reset(texto);
+        boolean igual = lexer.size() == completo.size();
+        for (int i = 0; igual && i < completo.size(); i++) {
+            igual = lexer.id(i) == completo.id(i)
+                    && lexer.start(i) == completo.start(i)
+                    && lexer.end(i) == completo.end(i);
+        }
+        if (!igual) {
+            throw new IllegalStateException("tokens divergentes na " + contexto
+                    + "\nincremental: " + listar(lexer, texto) + "\ncompleto:    " + listar(completo, texto));
+        }
+    }
+
+    private static void compilar(IncrementalLexer lexer, String texto, String contexto) {
+        List<String> incremental = CompilerPipeline.padrao().compile(texto, lexer.copy());
+        List<String> completo = CompilerPipeline.padrao().compile(texto);
+        if (ParserRunner.succeeded(completo)) {
+            completo = completo.subList(0, 1); // a verificação não gera o IL
+        }
+        if (!incremental.equals(completo)) {
+            throw new IllegalStateException("compilação divergente na " + contexto
+                    + "\nincremental: " + incremental + "\ncompleto:    " + completo);
+        }
+    }
+
+    private static String listar(IncrementalLexer tokens, CharSequence texto) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            sb.append(' ').append(tokens.id(i) == IncrementalLexer.ERROR
+                    ? "<erro>" : texto.subSequence(tokens.start(i), tokens.end(i)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,47 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+
+/**
+ * Regressão de escala do LexicalRunner.run: o tempo por caractere deve
+ * ficar constante conforme o fonte cresce (antes, cada token recontava as
+ * linhas desde o início do texto e o custo era quadrático).
+ * A listagem em lista fica inteira em memória, então 100 MB pede algo como
+ * -Xmx8g; a versão em fluxo (escrevendo num Writer descartável) não guarda
+ * a listagem e serve de comparação.
+ * Uso: MainLexicalRunnerBenchmark [MB...]   (padrão: 1 4 16)
+ */
+public class MainLexicalRunnerBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int[] tamanhos = {1, 4, 16};
+        if (args.length > 0) {
+            tamanhos = new int[args.length];
+            for (int i = 0; i < args.length; i++) tamanhos[i] = Integer.parseInt(args[i]);
+        }
+
+        // aquecimento
+        LexicalRunner.run(BenchmarkSources.programa(20_000));
+
+        for (int mb : tamanhos) {
+            // programa(n) gera ~28 caracteres por comando
+            String fonte = BenchmarkSources.programa(mb * 1_000_000 / 28);
+
+            long inicio = System.nanoTime();
+            int linhas = LexicalRunner.run(fonte).size();
+            long nanos = System.nanoTime() - inicio;
+
+            System.out.printf("%4d MB: %,10d linhas em %6.2f s (%.1f ns/caractere)%n",
+                    mb, linhas, nanos / 1e9, (double) nanos / fonte.length());
+
+            inicio = System.nanoTime();
+            LexicalRunner.run(new StringReader(fonte), Writer.nullWriter());
+            nanos = System.nanoTime() - inicio;
+
+            System.out.printf("%4d MB: em fluxo         em %6.2f s (%.1f ns/caractere)%n",
+                    mb, nanos / 1e9, (double) nanos / fonte.length());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.io.StringReader;
+
+/**
+ * Mede a vazão do léxico (tokens/segundo) sobre um programa gerado.
+ * Uso: MainLexicoBenchmark [comandos] [rodadas]
+ */
+public class MainLexicoBenchmark {
+
+    public static void main(String[] args) throws LexicalError {
+        int comandos = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rodadas  = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        String fonte = BenchmarkSources.programa(comandos);
+        System.out.printf("fonte: %d caracteres%n", fonte.length());
+
+        // aquecimento
+        for (int i = 0; i < 3; i++) {
+            scan(fonte, false);
+            scan(fonte, true);
+        }
+
+        report("tabela compacta (GALS)", fonte, rodadas, false);
+        report("tabela densa", fonte, rodadas, true);
+    }
+
+    private static void report(String nome, String fonte, int rodadas, boolean densa) throws LexicalError {
+        long tokens = 0;
+        long inicio = System.nanoTime();
+        for (int i = 0; i < rodadas; i++) {
+            tokens += scan(fonte, densa);
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        System.out.printf("%-24s %,12.0f tokens/s%n", nome, tokens / segundos);
+    }
+
+    private static long scan(String fonte, boolean densa) throws LexicalError {
+        Lexico lex = new Lexico(new StringReader(fonte));
+        lex.setDenseTable(densa);
+
+        long count = 0;
+        while (lex.nextToken() != null) count++;
+        return count;
+    }
+}
@@ -0,0 +1,42 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.io.StringReader;
+
+/**
+ * Teste de estresse: 1M de linhas de comentário seguidas antes do programa.
+ * Antes o léxico chamava nextToken recursivamente para cada token ignorado
+ * e estourava a pilha; agora deve reconhecer todos os tokens normalmente.
+ * Uso: MainLexicoStressTest [linhas]
+ */
+public class MainLexicoStressTest {
+
+    public static void main(String[] args) throws LexicalError {
+        int linhas = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        StringBuilder sb = new StringBuilder(linhas * 16);
+        for (int i = 0; i < linhas; i++) {
+            sb.append((i % 2 == 0) ? "-- comentario\n" : "{ bloco }\n");
+        }
+        sb.append("begin\n  int x;\n  x = 1;\nend\n");
+        String fonte = sb.toString();
+
+        long inicio = System.nanoTime();
+        int total = countTokens(new Lexico(new StringReader(fonte)));
+        Lexico streaming = new Lexico();
+        streaming.setStreamInput(new StringReader(fonte));
+        int totalStreaming = countTokens(streaming);
+        double ms = (System.nanoTime() - inicio) / 1e6;
+
+        // begin int x ; x = 1 ; end
+        if (total != 9 || totalStreaming != 9) {
+            throw new IllegalStateException("esperados 9 tokens, obtidos " + total + " / " + totalStreaming);
+        }
+        System.out.printf("%d linhas de comentário: OK (%.0f ms)%n", linhas, ms);
+    }
+
+    private static int countTokens(Lexico lex) throws LexicalError {
+        int count = 0;
+        while (lex.nextToken() != null) count++;
+        return count;
+    }
+}
@@ -0,0 +1,413 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Teste diferencial da dobra de constantes e da otimização peephole: cada
+ * programa é compilado com new CompilerPipeline(false) e (true), os dois IL
+ * rodam num interpretador simples (abaixo) com a mesma entrada e devem
+ * escrever exatamente a mesma coisa. O interpretador também rejeita IL
+ * inválido (tipos misturados na pilha, pilha vazia ou com sobras no ret).
+ * Roda os casos fixos e depois programas aleatórios (int, float, bool e
+ * string, com if e do-until).
+ * Uso: MainOtimizacaoTest [programas] [semente]
+ */
+public class MainOtimizacaoTest {
+
+    private static final List<String> ENTRADA = List.of("5", "-3", "7", "12", "0");
+
+    private static final String[] FIXOS = {
+            """
+            begin
+              bool ok;
+              string s;
+              s = "a";
+              ok = true and "a" == s;
+              print(ok);
+              ok = "a" == s or true;
+              print(ok);
+              ok = "a" == s and false;
+              print(ok);
+              ok = s ~= "b" and true;
+              print(ok);
+              if true and "a" == s print("sim"); else print("nao"); end;
+              if false or s == "a" print("sim"); end;
+            end
+            """,
+            """
+            begin
+              int a;
+              float f;
+              bool p;
+              a = 7 / 2 * 2;
+              f = -(1 + 2) * (3 - 4) / 5;
+              p = not (1 > 2) and (2.5 * 4 == 10);
+              print(a, f, p, 99999 * 99999, 1 / 0, -(2 - 2));
+              if 1 > 2 print(1); else print(2); end;
+              if p or false print(3); end;
+              do a = a - 1; until a < 0 or false;
+              do a = a + 1; until true;
+              print(a, not not p, p and true);
+            end
+            """,
+    };
+
+    // instruções do pipeline com otimização, somadas sobre todos os programas
+    private static long geradas;
+    private static long removidas;
+
+    public static void main(String[] args) {
+        int programas = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long semente = args.length > 1 ? Long.parseLong(args[1]) : 1;
+
+        CompilerPipeline semOtimizacao = new CompilerPipeline(false);
+        CompilerPipeline comOtimizacao = new CompilerPipeline(true);
+
+        for (String fonte : FIXOS) {
+            if (!comparar(fonte, semOtimizacao, comOtimizacao)) {
+                throw new IllegalStateException("caso fixo não compila:\n" + fonte);
+            }
+        }
+
+        int compilados = 0;
+        for (int i = 0; i < programas; i++) {
+            String fonte = new Gerador(new Random(semente + i)).programa();
+            if (comparar(fonte, semOtimizacao, comOtimizacao)) compilados++;
+        }
+        System.out.printf("%d casos fixos e %d programas aleatórios (%d com erro de compilação): "
+                + "mesma saída com e sem otimização%n", FIXOS.length, programas, programas - compilados);
+        System.out.printf("IL: %d instrução(ões) gerada(s), %d removida(s) pela otimização peephole%n",
+                geradas, removidas);
+    }
+
+    /** Compila nos dois modos e compara a execução; false se o fonte tem erro (nos dois modos). */
+    private static boolean comparar(String fonte, CompilerPipeline ref, CompilerPipeline otimizado) {
+        List<String> a = ref.compile(fonte);
+        CompileResult resultado = otimizado.compileResult(fonte, false);
+        List<String> b = resultado.getOutput();
+        geradas += resultado.getInstrucoesGeradas();
+        removidas += resultado.getInstrucoesRemovidas();
+        if (!ParserRunner.succeeded(a)) {
+            if (!a.equals(b)) throw falha(fonte, "erros diferentes: " + a + " / " + b);
+            return false;
+        }
+        String ilRef = ParserRunner.ilCode(a);
+        String ilOtimizado = ParserRunner.ilCode(b);
+        String saidaRef, saidaOtimizada;
+        try {
+            saidaRef = Interpretador.executar(ilRef, ENTRADA);
+        } catch (IllegalStateException e) {
+            throw falha(fonte, "IL sem otimização inválido: " + e.getMessage() + "\n" + ilRef);
+        }
+        try {
+            saidaOtimizada = Interpretador.executar(ilOtimizado, ENTRADA);
+        } catch (IllegalStateException e) {
+            throw falha(fonte, "IL otimizado inválido: " + e.getMessage() + "\n" + ilOtimizado);
+        }
+        if (!saidaRef.equals(saidaOtimizada)) {
+            throw falha(fonte, "saídas diferentes:\n" + saidaRef + "\n--- otimizado:\n" + saidaOtimizada
+                    + "\n--- IL otimizado:\n" + ilOtimizado);
+        }
+        return true;
+    }
+
+    private static IllegalStateException falha(String fonte, String msg) {
+        return new IllegalStateException(msg + "\n--- fonte:\n" + fonte);
+    }
+
+    /**
+     * Executa o IL gerado pelo compilador, instrução por instrução. Valores:
+     * Long (int64), Double (float64), Integer (bool/int32) e String; o ldstr
+     * devolve a String internada, como o CLR, e ceq compara strings por
+     * referência.
+     */
+    static final class Interpretador {
+
+        private static final int LIMITE_PASSOS = 1_000_000;
+
+        static String executar(String il, List<String> entrada) {
+            String[] linhas = il.split("\n");
+            Map<String, Integer> rotulos = new HashMap<>();
+            for (int i = 0; i < linhas.length; i++) {
+                if (linhas[i].matches("L\\d+:")) rotulos.put(linhas[i].substring(0, linhas[i].length() - 1), i);
+            }
+
+            Map<String, String> tipos = new HashMap<>();
+            Map<String, Object> locais = new HashMap<>();
+            Deque<Object> pilha = new ArrayDeque<>();
+            StringBuilder saida = new StringBuilder();
+            int lidos = 0;
+            int passos = 0;
+
+            for (int pc = 0; pc < linhas.length; pc++) {
+                String linha = linhas[pc];
+                if (linha.startsWith(".locals (")) {
+                    String[] tipoId = linha.substring(9, linha.length() - 1).split(" ");
+                    tipos.put(tipoId[1], tipoId[0]);
+                    locais.put(tipoId[1], inicial(tipoId[0]));
+                    continue;
+                }
+                if (linha.startsWith("//") || linha.startsWith(".") || linha.startsWith(" ")
+                        || linha.equals("}") || linha.endsWith(":")) {
+                    continue;
+                }
+                if (++passos > LIMITE_PASSOS) throw new IllegalStateException("limite de passos");
+
+                int espaco = linha.indexOf(' ');
+                String op = espaco < 0 ? linha : linha.substring(0, espaco);
+                String arg = espaco < 0 ? "" : linha.substring(espaco + 1);
+                switch (op) {
+                    case "ldc.i8" -> pilha.push(Long.parseLong(arg));
+                    case "ldc.r8" -> pilha.push(Double.parseDouble(arg));
+                    case "ldstr" -> pilha.push(arg.substring(1, arg.length() - 1).intern());
+                    case "ldc.i4.0" -> pilha.push(0);
+                    case "ldc.i4.1" -> pilha.push(1);
+                    case "conv.r8" -> {
+                        Object v = tirar(pilha, linha);
+                        if (v instanceof Long n) pilha.push((double) n);
+                        else pilha.push(real(v, linha));
+                    }
+                    case "conv.i8" -> pilha.push((long) real(tirar(pilha, linha), linha));
+                    case "add", "sub", "mul", "div" -> {
+                        double b = real(tirar(pilha, linha), linha);
+                        double a = real(tirar(pilha, linha), linha);
+                        pilha.push(switch (op) {
+                            case "add" -> a + b;
+                            case "sub" -> a - b;
+                            case "mul" -> a * b;
+                            default -> a / b;
+                        });
+                    }
+                    case "neg" -> pilha.push(-real(tirar(pilha, linha), linha));
+                    case "ceq", "clt", "cgt" -> pilha.push(comparar(op, tirar(pilha, linha), tirar(pilha, linha), linha));
+                    case "and", "or" -> {
+                        int b = booleano(tirar(pilha, linha), linha);
+                        int a = booleano(tirar(pilha, linha), linha);
+                        pilha.push(op.equals("and") ? a & b : a | b);
+                    }
+                    case "ldloc" -> pilha.push(locais.get(arg));
+                    case "stloc" -> {
+                        Object v = tirar(pilha, linha);
+                        if (!inicial(tipos.get(arg)).getClass().isInstance(v)) {
+                            throw new IllegalStateException(linha + " com " + v);
+                        }
+                        locais.put(arg, v);
+                    }
+                    case "br" -> pc = rotulos.get(arg);
+                    case "brfalse", "brtrue" -> {
+                        boolean zero = booleano(tirar(pilha, linha), linha) == 0;
+                        if (zero == op.equals("brfalse")) pc = rotulos.get(arg);
+                    }
+                    case "call" -> lidos = chamar(arg, pilha, saida, entrada, lidos, linha);
+                    case "ret" -> {
+                        if (!pilha.isEmpty()) throw new IllegalStateException("ret com " + pilha.size() + " valor(es) na pilha");
+                        return saida.toString();
+                    }
+                    default -> throw new IllegalStateException("instrução desconhecida: " + linha);
+                }
+            }
+            throw new IllegalStateException("programa sem ret");
+        }
+
+        private static int chamar(String metodo, Deque<Object> pilha, StringBuilder saida,
+                                  List<String> entrada, int lidos, String linha) {
+            if (metodo.equals(OpIL.CHAMADAS[OpIL.WRITE_INT64])) {
+                if (!(tirar(pilha, linha) instanceof Long n)) throw new IllegalStateException(linha);
+                saida.append(n);
+            } else if (metodo.equals(OpIL.CHAMADAS[OpIL.WRITE_FLOAT64])) {
+                saida.append(real(tirar(pilha, linha), linha));
+            } else if (metodo.equals(OpIL.CHAMADAS[OpIL.WRITE_STRING])) {
+                if (!(tirar(pilha, linha) instanceof String s)) throw new IllegalStateException(linha);
+                saida.append(s);
+            } else if (metodo.equals(OpIL.CHAMADAS[OpIL.WRITE_BOOL])) {
+                saida.append(booleano(tirar(pilha, linha), linha) != 0 ? "True" : "False");
+            } else if (metodo.equals(OpIL.CHAMADAS[OpIL.WRITELINE])) {
+                saida.append('\n');
+            } else if (metodo.equals(OpIL.CHAMADAS[OpIL.READLINE])) {
+                // new String: o que foi lido não é a constante internada (ceq dá falso)
+                pilha.push(new String(entrada.get(lidos % entrada.size())));
+                return lidos + 1;
+            } else if (metodo.equals(OpIL.CHAMADAS[OpIL.PARSE_INT64])) {
+                pilha.push(Long.parseLong(texto(tirar(pilha, linha), linha)));
+            } else if (metodo.equals(OpIL.CHAMADAS[OpIL.PARSE_FLOAT64])) {
+                pilha.push(Double.parseDouble(texto(tirar(pilha, linha), linha)));
+            } else {
+                throw new IllegalStateException("chamada desconhecida: " + linha);
+            }
+            return lidos;
+        }
+
+        private static Object inicial(String tipo) {
+            return switch (tipo) {
+                case "int64" -> 0L;
+                case "float64" -> 0.0;
+                case "bool" -> 0;
+                default -> "";
+            };
+        }
+
+        private static Object tirar(Deque<Object> pilha, String linha) {
+            if (pilha.isEmpty()) throw new IllegalStateException("pilha vazia em " + linha);
+            return pilha.pop();
+        }
+
+        private static double real(Object v, String linha) {
+            if (v instanceof Double d) return d;
+            throw new IllegalStateException(linha + " esperava float64, veio " + v);
+        }
+
+        private static int booleano(Object v, String linha) {
+            if (v instanceof Integer i) return i;
+            throw new IllegalStateException(linha + " esperava bool, veio " + v);
+        }
+
+        private static String texto(Object v, String linha) {
+            if (v instanceof String s) return s;
+            throw new IllegalStateException(linha + " esperava string, veio " + v);
+        }
+
+        /** b é o topo da pilha, a o de baixo. */
+        private static int comparar(String op, Object b, Object a, String linha) {
+            if (a instanceof Double x && b instanceof Double y) {
+                return (op.equals("ceq") ? x.doubleValue() == y : op.equals("clt") ? x < y : x > y) ? 1 : 0;
+            }
+            if (a instanceof Integer x && b instanceof Integer y) {
+                return (op.equals("ceq") ? x.intValue() == y : op.equals("clt") ? x < y : x > y) ? 1 : 0;
+            }
+            if (a instanceof String && b instanceof String && op.equals("ceq")) {
+                return a == b ? 1 : 0;
+            }
+            throw new IllegalStateException(linha + " com " + a + " e " + b);
+        }
+    }
+
+    /** Programas aleatórios válidos (quase sempre) da linguagem. */
+    private static final class Gerador {
+
+        private static final String[] INTEIROS = {"a", "b", "c"};
+        private static final String[] REAIS = {"f", "g"};
+        private static final String[] BOOLS = {"p", "q"};
+        private static final String[] STRINGS = {"s", "t"};
+        private static final String[] CONSTANTES_STRING = {"\"a\"", "\"b\"", "\"z\""};
+        private static final String[] RELACIONAIS = {"==", "~=", "<", ">"};
+
+        private final Random r;
+        private int contadores;
+
+        Gerador(Random r) {
+            this.r = r;
+        }
+
+        private String de(String[] opcoes) {
+            return opcoes[r.nextInt(opcoes.length)];
+        }
+
+        String programa() {
+            StringBuilder sb = new StringBuilder("""
+                    begin
+                      int a, b, c;
+                      float f, g;
+                      bool p, q;
+                      string s, t;
+                      int k_0, k_1, k_2;
+                      a = 7; b = 3; f = 1.5; s = "a"; t = "b";
+                    """);
+            int n = 3 + r.nextInt(8);
+            for (int i = 0; i < n; i++) comando(sb, 2, "  ");
+            return sb.append("end\n").toString();
+        }
+
+        private String numero(int d) {
+            switch (r.nextInt(d <= 0 ? 4 : 10)) {
+                case 0: return Integer.toString(r.nextInt(r.nextBoolean() ? 10 : 100000));
+                case 1: return r.nextInt(100) + "." + (r.nextBoolean() ? "0" : Integer.toString(1 + r.nextInt(9)));
+                case 2: return de(INTEIROS);
+                case 3: return de(REAIS);
+                case 4: case 5: return numero(d - 1) + " " + "+-*/".charAt(r.nextInt(4)) + " " + numero(d - 1);
+                case 6: return "(" + numero(d - 1) + ")";
+                case 7: {
+                    String n = numero(d - 1);
+                    return n.startsWith("-") ? "-(" + n + ")" : "-" + n; // "--" abriria um comentário
+                }
+                case 8: return "(" + numero(d - 1) + " " + "+-*".charAt(r.nextInt(3)) + " " + numero(d - 1) + ")";
+                default: return numero(d - 1) + " * " + numero(d - 1);
+            }
+        }
+
+        private String string() {
+            return r.nextBoolean() ? de(STRINGS) : de(CONSTANTES_STRING);
+        }
+
+        /** Operando bool que aceita not: constante, variável ou parênteses. */
+        private String valor(int d) {
+            switch (r.nextInt(d <= 0 ? 2 : 4)) {
+                case 0: return r.nextBoolean() ? "true" : "false";
+                case 1: return de(BOOLS);
+                case 2: return "not " + valor(d - 1);
+                default: return "(" + expressao(d - 1) + ")";
+            }
+        }
+
+        private String termo(int d) {
+            switch (r.nextInt(4)) {
+                case 0: return numero(d - 1) + " " + de(RELACIONAIS) + " " + numero(d - 1);
+                case 1: return string() + " " + (r.nextBoolean() ? "==" : "~=") + " " + string();
+                default: return valor(d);
+            }
+        }
+
+        private String expressao(int d) {
+            StringBuilder s = new StringBuilder(termo(d));
+            int n = r.nextInt(3);
+            for (int i = 0; i < n; i++) s.append(r.nextBoolean() ? " and " : " or ").append(termo(d));
+            return s.toString();
+        }
+
+        private void comando(StringBuilder sb, int d, String ind) {
+            switch (r.nextInt(d <= 0 ? 6 : 9)) {
+                case 0 -> sb.append(ind).append(de(INTEIROS)).append(" = ").append(numero(2)).append(";\n");
+                case 1 -> sb.append(ind).append(de(REAIS)).append(" = ").append(numero(2)).append(";\n");
+                case 2 -> sb.append(ind).append(de(BOOLS)).append(" = ").append(expressao(2)).append(";\n");
+                case 3 -> sb.append(ind).append(de(STRINGS)).append(" = ").append(string()).append(";\n");
+                case 4 -> sb.append(ind).append("print (").append(numero(2)).append(", ").append(expressao(1))
+                        .append(", ").append(string()).append(");\n");
+                case 5 -> sb.append(ind).append("read (\"v\", ").append(de(INTEIROS)).append(", ")
+                        .append(de(REAIS)).append(", ").append(de(STRINGS)).append(");\n");
+                case 6, 7 -> {
+                    sb.append(ind).append("if ").append(expressao(2)).append("\n");
+                    bloco(sb, d, ind);
+                    if (r.nextBoolean()) {
+                        sb.append(ind).append("else\n");
+                        bloco(sb, d, ind);
+                    }
+                    sb.append(ind).append("end;\n");
+                }
+                default -> {
+                    // laço com contador próprio, que só ele altera
+                    String k = "k_" + (contadores++ % 3);
+                    sb.append(ind).append(k).append(" = ").append(r.nextInt(4)).append(";\n");
+                    sb.append(ind).append("do\n");
+                    comando(sb, 0, ind + "  ");
+                    sb.append(ind).append("  ").append(k).append(" = ").append(k).append(" - 1;\n");
+                    String condicao = switch (r.nextInt(6)) {
+                        case 0 -> "true";
+                        case 1 -> "1 > 0";
+                        case 2 -> k + " < 0 or false";
+                        default -> k + " < 0";
+                    };
+                    sb.append(ind).append("until ").append(condicao).append(";\n");
+                }
+            }
+        }
+
+        private void bloco(StringBuilder sb, int d, String ind) {
+            int n = 1 + r.nextInt(3);
+            for (int i = 0; i < n; i++) comando(sb, d - 1, ind + "  ");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Teste de estresse do CompilerPipeline: 32 threads compilando ao mesmo
+ * tempo (com e sem erro) devem produzir exatamente a mesma saída que a
+ * compilação sequencial de cada fonte.
+ * Uso: MainPipelineStressTest [threads] [rodadas]
+ */
+public class MainPipelineStressTest {
+
+    private static final String[] FONTES = {
+            BenchmarkSources.programa(2_000),
+            BenchmarkSources.expressoesAninhadas(200, 10),
+            """
+            begin
+              int x;
+              x = ;
+            end
+            """,
+            """
+            begin
+              int x;
+              y = 3;
+            end
+            """,
+            """
+            begin
+              string s;
+              s = "abc
+            end
+            """,
+    };
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int rodadas = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        CompilerPipeline pipeline = CompilerPipeline.padrao();
+
+        // referência: uma compilação sequencial (com instâncias novas) de cada fonte
+        List<List<String>> esperado = new ArrayList<>();
+        for (String fonte : FONTES) {
+            esperado.add(new CompilerPipeline().compile(fonte));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int r = 0; r < rodadas; r++) {
+                CountDownLatch largada = new CountDownLatch(1);
+                List<Future<Boolean>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int indice = (t + r) % FONTES.length;
+                    Callable<Boolean> tarefa = () -> {
+                        largada.await();
+                        return pipeline.compile(FONTES[indice]).equals(esperado.get(indice));
+                    };
+                    futures.add(pool.submit(tarefa));
+                }
+                largada.countDown();
+
+                for (Future<Boolean> f : futures) {
+                    if (!f.get()) {
+                        throw new IllegalStateException("saída divergente na rodada " + r);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        System.out.printf("%d rodadas x %d compilações paralelas: saídas idênticas%n", rodadas, threads);
+    }
+}
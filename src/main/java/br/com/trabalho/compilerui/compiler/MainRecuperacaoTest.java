@@ -0,0 +1,66 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Teste do modo de recuperação: para fontes com erro, a saída com
+ * recover = true (todos os erros) deve conter a linha de erro que o modo
+ * padrão relata, isto é, o primeiro erro. Roda alguns casos fixos (erro
+ * sintático antes de um erro léxico na mesma linha) e depois mutações
+ * aleatórias de um programa válido.
+ * Uso: MainRecuperacaoTest [programas] [semente]
+ */
+public class MainRecuperacaoTest {
+
+    private static final String[] FIXOS = {
+            "begin\n  int a;\n  fdloat f@;\nend\n",
+            "be~gin\n  int a;\nend\n",
+            "begin\n  int a;\n  a = 1 +;  @\nend\n",
+            "begin\n  int a;\n  a = @;\nend\n",
+    };
+
+    private static final String[] PEDACOS = {
+            "@", "#", "~", "\"", "{", "}", ";", "(", ")", ",", "=", "-", "1.", "x", "d",
+            "end", "begin", "if", "int", "\n",
+    };
+
+    public static void main(String[] args) {
+        int programas = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        long semente = args.length > 1 ? Long.parseLong(args[1]) : 1;
+
+        for (String fonte : FIXOS) {
+            verificar(fonte);
+        }
+
+        Random rnd = new Random(semente);
+        String base = BenchmarkSources.programa(12);
+        int comErro = 0;
+        for (int i = 0; i < programas; i++) {
+            StringBuilder fonte = new StringBuilder(base);
+            int mutacoes = 1 + rnd.nextInt(3);
+            for (int m = 0; m < mutacoes; m++) {
+                int offset = rnd.nextInt(fonte.length() + 1);
+                int removidos = Math.min(rnd.nextInt(3), fonte.length() - offset);
+                fonte.replace(offset, offset + removidos, PEDACOS[rnd.nextInt(PEDACOS.length)]);
+            }
+            if (verificar(fonte.toString())) comErro++;
+        }
+        System.out.printf("%d programas (%d com erro): o primeiro erro aparece também na recuperação%n",
+                programas + FIXOS.length, comErro);
+    }
+
+    /** Devolve true se o fonte tem erro. */
+    private static boolean verificar(String fonte) {
+        CompilerPipeline pipeline = CompilerPipeline.padrao();
+        List<String> padrao = pipeline.compile(fonte);
+        if (ParserRunner.succeeded(padrao)) return false;
+
+        List<String> todos = pipeline.compile(fonte, true);
+        if (!todos.contains(padrao.get(0))) {
+            throw new IllegalStateException("erro \"" + padrao.get(0)
+                    + "\" ausente na recuperação " + todos + " para:\n" + fonte);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,88 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.util.Random;
+
+/**
+ * Compara as formas de classificar identificadores contra as palavras-reservadas:
+ * busca binária com String (lookupToken original), busca binária sobre os
+ * caracteres e o hash perfeito de ReservedWords.
+ * Uso: MainReservedWordsBenchmark [palavras] [rodadas]
+ */
+public class MainReservedWordsBenchmark {
+
+    private static final String[] IDENTIFICADORES = {
+            "x", "contador", "soma_1", "endereco", "ifa", "Valor", "doce", "total",
+            "inteiro", "lista", "notas", "ordem", "printer", "reader", "tamanho", "ultimo",
+    };
+
+    public static void main(String[] args) {
+        int palavras = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rodadas  = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        // metade palavras-reservadas, metade identificadores comuns
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        int[] starts = new int[palavras];
+        int[] lengths = new int[palavras];
+        for (int i = 0; i < palavras; i++) {
+            String w = random.nextBoolean()
+                    ? ScannerConstants.SPECIAL_CASES_KEYS[random.nextInt(ScannerConstants.SPECIAL_CASES_KEYS.length)]
+                    : IDENTIFICADORES[random.nextInt(IDENTIFICADORES.length)];
+            starts[i] = sb.length();
+            lengths[i] = w.length();
+            sb.append(w);
+        }
+        char[] chars = sb.toString().toCharArray();
+        Lexico lexico = new Lexico();
+
+        for (int i = 0; i < 5; i++) {
+            runString(lexico, chars, starts, lengths);
+            runBinary(chars, starts, lengths);
+            runHash(chars, starts, lengths);
+        }
+
+        long t0 = System.nanoTime();
+        long c1 = 0;
+        for (int i = 0; i < rodadas; i++) c1 += runString(lexico, chars, starts, lengths);
+        long t1 = System.nanoTime();
+        long c2 = 0;
+        for (int i = 0; i < rodadas; i++) c2 += runBinary(chars, starts, lengths);
+        long t2 = System.nanoTime();
+        long c3 = 0;
+        for (int i = 0; i < rodadas; i++) c3 += runHash(chars, starts, lengths);
+        long t3 = System.nanoTime();
+
+        if (c1 != c2 || c2 != c3) {
+            throw new IllegalStateException("Classificações divergentes: " + c1 + " " + c2 + " " + c3);
+        }
+
+        double total = (double) palavras * rodadas;
+        System.out.printf("%-28s %6.2f ns/palavra%n", "busca binária (String)", (t1 - t0) / total);
+        System.out.printf("%-28s %6.2f ns/palavra%n", "busca binária (char[])", (t2 - t1) / total);
+        System.out.printf("%-28s %6.2f ns/palavra%n", "hash perfeito", (t3 - t2) / total);
+    }
+
+    private static long runString(Lexico lexico, char[] chars, int[] starts, int[] lengths) {
+        long sum = 0;
+        for (int i = 0; i < starts.length; i++) {
+            sum += lexico.lookupToken(Constants.t_identificador, new String(chars, starts[i], lengths[i]));
+        }
+        return sum;
+    }
+
+    private static long runBinary(char[] chars, int[] starts, int[] lengths) {
+        long sum = 0;
+        for (int i = 0; i < starts.length; i++) {
+            sum += ReservedWords.binarySearch(Constants.t_identificador, chars, starts[i], lengths[i]);
+        }
+        return sum;
+    }
+
+    private static long runHash(char[] chars, int[] starts, int[] lengths) {
+        long sum = 0;
+        for (int i = 0; i < starts.length; i++) {
+            sum += ReservedWords.lookup(Constants.t_identificador, chars, starts[i], lengths[i]);
+        }
+        return sum;
+    }
+}
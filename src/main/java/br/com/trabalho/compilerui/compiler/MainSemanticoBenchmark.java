@@ -0,0 +1,61 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Mede o semântico (EnhancedSemantico/SemanticContext) sobre programas com
+ * muitas variáveis e expressões: o sintático roda sobre tokens já prontos,
+ * uma vez com ações vazias e outra com o semântico, e a diferença é o custo
+ * das ações. Mostra também os bytes alocados por token.
+ * Uso: MainSemanticoBenchmark [variaveis] [comandos] [rodadas]
+ */
+public class MainSemanticoBenchmark {
+
+    /** Semântico que não faz nada, para descontar o driver. */
+    private static final Semantico SEM_ACOES = new Semantico() {
+        @Override
+        public void executeAction(int action, Token token) {}
+    };
+
+    public static void main(String[] args) throws AnalysisError {
+        int variaveis = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int comandos  = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int rodadas   = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        medir("muitas variáveis", BenchmarkSources.muitasVariaveis(variaveis, comandos), rodadas);
+        medir("comandos variados", BenchmarkSources.programa(comandos), rodadas);
+    }
+
+    private static void medir(String nome, String fonte, int rodadas) throws AnalysisError {
+        TokenStream tokens = new TokenStream();
+        tokens.tokenize(fonte);
+
+        for (int i = 0; i < 3; i++) {
+            new Sintatico().parse(tokens, SEM_ACOES);
+            new Sintatico().parse(tokens, new EnhancedSemantico());
+        }
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < rodadas; i++) {
+            new Sintatico().parse(tokens, SEM_ACOES);
+        }
+        long driver = System.nanoTime() - inicio;
+
+        long alocado = alocadoNaThread();
+        inicio = System.nanoTime();
+        for (int i = 0; i < rodadas; i++) {
+            new Sintatico().parse(tokens, new EnhancedSemantico());
+        }
+        long completo = System.nanoTime() - inicio;
+        alocado = alocadoNaThread() - alocado;
+
+        double semantico = (completo - driver) / 1e6 / rodadas;
+        System.out.printf("%-18s %,9d tokens: semântico %7.1f ms/rodada, %5.1f bytes alocados/token%n",
+                nome, tokens.size(), semantico, (double) alocado / rodadas / tokens.size());
+    }
+
+    private static long alocadoNaThread() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,62 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.io.StringReader;
+
+/**
+ * Mede a vazão do sintático sobre um programa gerado: só o driver LL(1)
+ * (tokens já prontos num TokenStream, ações semânticas vazias), o driver
+ * em expressões profundamente aninhadas e a compilação completa
+ * (léxico + sintático + semântico).
+ * Uso: MainSintaticoBenchmark [comandos] [rodadas]
+ */
+public class MainSintaticoBenchmark {
+
+    /** Semântico que não faz nada, para medir apenas o driver. */
+    private static final Semantico SEM_ACOES = new Semantico() {
+        @Override
+        public void executeAction(int action, Token token) {}
+    };
+
+    public static void main(String[] args) throws AnalysisError {
+        int comandos = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rodadas  = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        String fonte = BenchmarkSources.programa(comandos);
+        TokenStream tokens = new TokenStream();
+        tokens.tokenize(fonte);
+        System.out.printf("fonte: %d caracteres, %d tokens%n", fonte.length(), tokens.size());
+
+        for (int i = 0; i < 3; i++) {
+            new Sintatico().parse(tokens, SEM_ACOES);
+            new Sintatico().parse(new Lexico(new StringReader(fonte)), new EnhancedSemantico());
+        }
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < rodadas; i++) {
+            new Sintatico().parse(tokens, SEM_ACOES);
+        }
+        report("sintático (só driver)", tokens.size(), rodadas, inicio);
+
+        TokenStream aninhadas = new TokenStream();
+        aninhadas.tokenize(BenchmarkSources.expressoesAninhadas(comandos / 20, 30));
+        for (int i = 0; i < 3; i++) {
+            new Sintatico().parse(aninhadas, SEM_ACOES);
+        }
+        inicio = System.nanoTime();
+        for (int i = 0; i < rodadas; i++) {
+            new Sintatico().parse(aninhadas, SEM_ACOES);
+        }
+        report("expressões aninhadas", aninhadas.size(), rodadas, inicio);
+
+        inicio = System.nanoTime();
+        for (int i = 0; i < rodadas; i++) {
+            new Sintatico().parse(new Lexico(new StringReader(fonte)), new EnhancedSemantico());
+        }
+        report("compilação completa", tokens.size(), rodadas, inicio);
+    }
+
+    private static void report(String nome, int tokens, int rodadas, long inicio) {
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        System.out.printf("%-24s %,12.0f tokens/s%n", nome, (double) tokens * rodadas / segundos);
+    }
+}
@@ -0,0 +1,19 @@
+package br.com.trabalho.compilerui.compiler;
+
+/**
+ * Emitter que descarta o código, para compilações que só procuram erros
+ * (a verificação enquanto se digita). O SemanticContext nem chega a
+ * formatar o IL para ele.
+ */
+final class NullEmitter implements Emitter {
+
+    static final NullEmitter INSTANCE = new NullEmitter();
+
+    private NullEmitter() {}
+
+    @Override
+    public void emitir(String trecho) { }
+
+    @Override
+    public void emitir(char c) { }
+}
@@ -0,0 +1,88 @@
+package br.com.trabalho.compilerui.compiler;
+
+/**
+ * Códigos das instruções do CodigoIL. O argumento de cada instrução,
+ * quando há, é um índice: no pool de operandos (constantes e texto), na
+ * tabela de símbolos (slot), em CHAMADAS ou o número do rótulo.
+ */
+final class OpIL {
+
+    // argumento: índice no pool de operandos
+    static final int TEXTO  = 0;  // linha copiada como está (cabeçalho, comentários)
+    static final int LDC_I8 = 1;
+    static final int LDC_R8 = 2;
+    static final int LDSTR  = 3;
+
+    // argumento: slot da variável
+    static final int LOCALS = 4;
+    static final int LDLOC  = 5;
+    static final int STLOC  = 6;
+
+    // argumento: índice em CHAMADAS
+    static final int CALL = 7;
+
+    // argumento: número do rótulo
+    static final int ROTULO  = 8;
+    static final int BR      = 9;
+    static final int BRFALSE = 10;
+    static final int BRTRUE  = 11;
+
+    // sem argumento
+    static final int LDC_I4_0 = 12;
+    static final int LDC_I4_1 = 13;
+    static final int CONV_R8  = 14;
+    static final int CONV_I8  = 15;
+    static final int ADD = 16;
+    static final int SUB = 17;
+    static final int MUL = 18;
+    static final int DIV = 19;
+    static final int NEG = 20;
+    static final int CEQ = 21;
+    static final int CLT = 22;
+    static final int CGT = 23;
+    static final int AND = 24;
+    static final int OR  = 25;
+    static final int RET = 26;
+
+    private static final String[] NOMES = {
+            null, "ldc.i8", "ldc.r8", "ldstr",
+            ".locals", "ldloc", "stloc",
+            "call",
+            null, "br", "brfalse", "brtrue",
+            "ldc.i4.0", "ldc.i4.1", "conv.r8", "conv.i8",
+            "add", "sub", "mul", "div", "neg", "ceq", "clt", "cgt", "and", "or", "ret",
+    };
+
+    // métodos chamados pelo programa, argumento de CALL
+    static final int WRITE_INT64   = 0;
+    static final int WRITE_FLOAT64 = 1;
+    static final int WRITE_STRING  = 2;
+    static final int WRITE_BOOL    = 3;
+    static final int WRITELINE     = 4;
+    static final int READLINE      = 5;
+    static final int PARSE_INT64   = 6;
+    static final int PARSE_FLOAT64 = 7;
+
+    static final String[] CHAMADAS = {
+            "void [mscorlib]System.Console::Write(int64)",
+            "void [mscorlib]System.Console::Write(float64)",
+            "void [mscorlib]System.Console::Write(string)",
+            "void [mscorlib]System.Console::Write(bool)",
+            "void [mscorlib]System.Console::WriteLine()",
+            "string [mscorlib]System.Console::ReadLine()",
+            "int64 [mscorlib]System.Int64::Parse(string)",
+            "float64 [mscorlib]System.Double::Parse(string)",
+    };
+
+    private OpIL() {}
+
+    /** Mnemônico da instrução no IL. */
+    static String nome(int op) {
+        return NOMES[op];
+    }
+
+    /** Se a instrução é um desvio (o argumento é o rótulo de destino). */
+    static boolean desvio(int op) {
+        return op == BR || op == BRFALSE || op == BRTRUE;
+    }
+}
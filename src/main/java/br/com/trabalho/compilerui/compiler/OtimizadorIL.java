@@ -0,0 +1,119 @@
+package br.com.trabalho.compilerui.compiler;
+
+/**
+ * Otimização peephole do código de um comando, antes de ir para a saída.
+ * As instruções são copiadas uma a uma para o começo do próprio CodigoIL
+ * e, a cada cópia, as regras abaixo olham o fim do que já foi copiado
+ * (uma regra pode habilitar outra):
+ *
+ *   ldc.i8 N; conv.r8            -> ldc.r8 N.0
+ *   conv.r8; conv.i8             -> (nada)
+ *   ldc.r8 N.0; conv.i8          -> ldc.i8 N
+ *   ldc.i4.0; ceq; brfalse L     -> brtrue L
+ *   ldc.i4.0; ceq; brtrue L      -> brfalse L
+ *   B; ldc.i4.0; ceq; ldc.i4.0; ceq -> B   (B deixa 0 ou 1 na pilha)
+ *
+ * "ldc.i4.0; ceq" é sempre "topo == 0" (not, ~= e == false). conv.r8 só
+ * aparece depois de um valor int64, então conv.r8; conv.i8 devolve o
+ * mesmo inteiro (exato até 2^53, além disso a ida e volta perdia dígitos).
+ */
+final class OtimizadorIL {
+
+    private final SemanticContext simbolos;
+
+    // instruções executáveis (sem linhas de texto, .locals e rótulos)
+    private long geradas;
+    private long removidas;
+
+    OtimizadorIL(SemanticContext simbolos) {
+        this.simbolos = simbolos;
+    }
+
+    long getInstrucoesGeradas() {
+        return geradas;
+    }
+
+    long getInstrucoesRemovidas() {
+        return removidas;
+    }
+
+    void otimizar(CodigoIL codigo) {
+        int n = codigo.tamanho();
+        int antes = executaveis(codigo, n);
+        int w = 0;
+        for (int i = 0; i < n; i++) {
+            codigo.definir(w++, codigo.op(i), codigo.arg(i));
+            w = reduzir(codigo, w);
+        }
+        codigo.truncar(w);
+        geradas += antes;
+        removidas += antes - executaveis(codigo, w);
+    }
+
+    /** Aplica as regras ao fim de codigo[0, w) enquanto alguma casar; devolve o novo fim. */
+    private int reduzir(CodigoIL c, int w) {
+        while (true) {
+            int ultima = c.op(w - 1);
+            if (ultima == OpIL.CONV_R8 && w >= 2 && c.op(w - 2) == OpIL.LDC_I8) {
+                // ldc.i8 N; conv.r8 -> ldc.r8 N.0
+                String n = c.operando(c.arg(w - 2));
+                c.definir(w - 2, OpIL.LDC_R8, c.novoOperando(n + ".0"));
+                w -= 1;
+            } else if (ultima == OpIL.CONV_I8 && w >= 2 && c.op(w - 2) == OpIL.CONV_R8) {
+                w -= 2;
+            } else if (ultima == OpIL.CONV_I8 && w >= 2 && c.op(w - 2) == OpIL.LDC_R8
+                    && inteiro(c.operando(c.arg(w - 2)))) {
+                // ldc.r8 N.0; conv.i8 -> ldc.i8 N
+                String n = c.operando(c.arg(w - 2));
+                c.definir(w - 2, OpIL.LDC_I8, c.novoOperando(n.substring(0, n.length() - 2)));
+                w -= 1;
+            } else if ((ultima == OpIL.BRFALSE || ultima == OpIL.BRTRUE) && w >= 3
+                    && c.op(w - 2) == OpIL.CEQ && c.op(w - 3) == OpIL.LDC_I4_0) {
+                int invertido = ultima == OpIL.BRFALSE ? OpIL.BRTRUE : OpIL.BRFALSE;
+                c.definir(w - 3, invertido, c.arg(w - 1));
+                w -= 2;
+            } else if (ultima == OpIL.CEQ && w >= 5 && c.op(w - 2) == OpIL.LDC_I4_0
+                    && c.op(w - 3) == OpIL.CEQ && c.op(w - 4) == OpIL.LDC_I4_0
+                    && booleano(c, w - 5)) {
+                w -= 4;
+            } else {
+                return w;
+            }
+        }
+    }
+
+    /**
+     * Constante float sem parte fracionária: N.0 (do léxico ou da dobra de
+     * constantes), com no máximo 15 dígitos, para que N seja o mesmo valor
+     * que o conv.i8 daria e caiba no ldc.i8.
+     */
+    private static boolean inteiro(String lexema) {
+        int digitos = lexema.length() - 2 - (lexema.startsWith("-") ? 1 : 0);
+        return lexema.endsWith(".0") && digitos <= 15;
+    }
+
+    /** Se a instrução "i" deixa 0 ou 1 na pilha. */
+    private boolean booleano(CodigoIL c, int i) {
+        switch (c.op(i)) {
+            case OpIL.CEQ:
+            case OpIL.CLT:
+            case OpIL.CGT:
+            case OpIL.LDC_I4_0:
+            case OpIL.LDC_I4_1:
+                return true;
+            case OpIL.LDLOC:
+                return simbolos.tipoDoSlot(c.arg(i)) == Tipo.BOOL;
+            default:
+                return false;
+        }
+    }
+
+    private static int executaveis(CodigoIL c, int n) {
+        int total = 0;
+        for (int i = 0; i < n; i++) {
+            int op = c.op(i);
+            if (op != OpIL.TEXTO && op != OpIL.LOCALS && op != OpIL.ROTULO) total++;
+        }
+        return total;
+    }
+}
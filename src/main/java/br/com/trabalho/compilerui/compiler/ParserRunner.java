@@ -1,7 +1,9 @@
 package br.com.trabalho.compilerui.compiler;
 
-import java.io.StringReader;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 public final class ParserRunner {
@@ -9,34 +11,103 @@ public final class ParserRunner {
     private ParserRunner() {}
 
     public static List<String> run(String source) {
-        List<String> out = new ArrayList<>();
+        return CompilerPipeline.padrao().compile(source);
+    }
 
-        Lexico lexico = new Lexico();
-        lexico.setInput(new StringReader(source));
+    /**
+     * Compila direto do arquivo, que é lido mapeado em memória pelo léxico.
+     * O texto completo só é carregado quando há erro, para montar a mensagem.
+     */
+    public static List<String> run(Path file) throws IOException {
+        return CompilerPipeline.padrao().compile(file);
+    }
 
-        Sintatico sintatico = new Sintatico();
-        EnhancedSemantico semantico = new EnhancedSemantico();
+    /**
+     * Como run(String), mas com recover = true relata todos os erros numa
+     * só passada (um "linha X: ..." por erro, na ordem do fonte).
+     */
+    public static List<String> run(String source, boolean recover) {
+        return CompilerPipeline.padrao().compile(source, recover);
+    }
 
-        try {
-            sintatico.parse(lexico, semantico);
-            out.add("programa compilado com sucesso");
+    public static List<String> run(Path file, boolean recover) throws IOException {
+        return CompilerPipeline.padrao().compile(file, recover);
+    }
 
-            // Opcional: exibir também o código IL gerado
-            String il = semantico.getCodigoGerado();
-            if (il != null && !il.isBlank()) {
-                out.add("----------- CÓDIGO IL -----------");
-                for (String linha : il.split("\\R")) {
-                    if (!linha.isBlank()) {
-                        out.add(linha);
-                    }
+    /**
+     * Compila o arquivo e, se não houver erros, grava o código IL em "il"
+     * durante a análise (ver FileEmitter). A saída só traz a primeira linha.
+     */
+    public static List<String> run(Path file, boolean recover, Path il) throws IOException {
+        return CompilerPipeline.padrao().compile(file, recover, il).getOutput();
+    }
+
+    static List<String> compile(Lexico lexico, Sintatico sintatico, EnhancedSemantico semantico) throws AnalysisError {
+        sintatico.parse(lexico, semantico);
+        return success(semantico);
+    }
+
+    static List<String> compile(TokenStream tokens, Sintatico sintatico, EnhancedSemantico semantico) throws AnalysisError {
+        sintatico.parse(tokens, semantico);
+        return success(semantico);
+    }
+
+    private static List<String> success(EnhancedSemantico semantico) {
+        List<String> out = new ArrayList<>();
+        out.add("programa compilado com sucesso");
+
+        // Opcional: exibir também o código IL gerado (se ficou em memória)
+        String il = semantico.getCodigoGerado();
+        if (il != null && !il.isBlank()) {
+            out.add("----------- CÓDIGO IL -----------");
+            for (String linha : il.split("\\R")) {
+                if (!linha.isBlank()) {
+                    out.add(linha);
                 }
             }
+        }
 
-            return out;
+        return out;
+    }
 
-        } catch (LexicalError e) {
+    /** Erros guardados pelo léxico e pelo sintático no modo de recuperação, por posição. */
+    static List<AnalysisError> recoveredErrors(Lexico lexico, Sintatico sintatico) {
+        List<AnalysisError> errors = new ArrayList<>(lexico.getErrors());
+        List<AnalysisError> parsed = sintatico.getErrors();
+        // o token descartado pelo léxico quase sempre gera um erro sintático
+        // em cascata, que só repetiria o problema: cai o primeiro erro
+        // sintático a partir da posição de cada erro léxico; os anteriores,
+        // mesmo na mesma linha, ficam (as duas listas estão na ordem do fonte)
+        boolean[] cascade = new boolean[parsed.size()];
+        int i = 0;
+        for (AnalysisError lexical : lexico.getErrors()) {
+            while (i < parsed.size() && (!(parsed.get(i) instanceof SyntaticError)
+                    || parsed.get(i).getPosition() < lexical.getPosition())) {
+                i++;
+            }
+            if (i < parsed.size()) cascade[i] = true;
+        }
+        for (i = 0; i < parsed.size(); i++) {
+            if (!cascade[i]) errors.add(parsed.get(i));
+        }
+        errors.sort(Comparator.comparingInt(AnalysisError::getPosition));
+        return errors;
+    }
+
+    static List<String> report(String source, List<AnalysisError> errors) {
+        List<String> out = new ArrayList<>();
+        for (AnalysisError e : errors) {
+            out.addAll(report(source, e));
+        }
+        return out;
+    }
+
+    static List<String> report(String source, AnalysisError e) {
+        List<String> out = new ArrayList<>();
+
+        if (e instanceof LexicalError) {
             int pos = e.getPosition();
-            int linha = SyntaxMessageBuilder.toLineNumber(source, pos);
+            int linha = lineOf(source, e);
             String raw = e.getMessage();
 
             // String mal formada, conforme enunciado (parte 2)
@@ -50,9 +121,9 @@ public final class ParserRunner {
             out.add(String.format("linha %d: %c %s", linha, ch, msg));
             return out;
 
-        } catch (SyntaticError e) {
+        } else if (e instanceof SyntaticError) {
             int pos = e.getPosition();
-            int linha = SyntaxMessageBuilder.toLineNumber(source, pos);
+            int linha = lineOf(source, e);
 
             String encontrado = SyntaxMessageBuilder.guessFoundLexeme(source, pos);
             String esperadoRaw = e.getMessage();
@@ -66,16 +137,41 @@ public final class ParserRunner {
             out.add(String.format("linha %d: encontrado %s esperado %s", linha, encontrado, esperado));
             return out;
 
-        } catch (SemanticError e) {
-            int pos = e.getPosition();
-            int linha = SyntaxMessageBuilder.toLineNumber(source, pos);
+        } else {
+            int linha = lineOf(source, e);
             out.add(String.format("linha %d: erro semântico: %s", linha, e.getMessage()));
             return out;
         }
     }
 
+    /** Indica se a saída de run(...) é de uma compilação bem-sucedida. */
+    public static boolean succeeded(List<String> result) {
+        return !result.isEmpty()
+                && result.get(0).trim().equalsIgnoreCase("programa compilado com sucesso");
+    }
+
+    /** Monta o conteúdo do arquivo .il a partir da saída de run(...) (linhas 1..n). */
+    public static String ilCode(List<String> result) {
+        StringBuilder il = new StringBuilder();
+        for (int i = 1; i < result.size(); i++) {
+            String line = result.get(i);
+
+            // Ignora o marcador "----------- CÓDIGO IL -----------"
+            if (line.startsWith("-----------")) continue;
+
+            il.append(line).append('\n');
+        }
+        return il.toString();
+    }
+
     // === Helpers ===
 
+    /** Linha informada pelo léxico; só recalcula a partir do fonte se o erro não a trouxer. */
+    private static int lineOf(String source, AnalysisError e) {
+        if (e.getLine() > 0) return e.getLine();
+        return new LineIndex(source).lineOf(Math.max(0, e.getPosition()));
+    }
+
     private static String normalizeLexMsg(String msg) {
         if (msg == null || msg.isEmpty()) return "erro léxico";
         // mapeamentos exigidos na parte 2:
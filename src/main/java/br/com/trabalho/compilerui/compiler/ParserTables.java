@@ -0,0 +1,59 @@
+package br.com.trabalho.compilerui.compiler;
+
+/**
+ * Tabelas do sintático reorganizadas para o laço do LL(1), montadas na
+ * carga da classe a partir de PARSER_TABLE e PRODUCTIONS:
+ * PREDICT é a tabela de predição num único vetor, indexado por
+ * (não-terminal - FIRST_NON_TERMINAL) * TERMINALS + (terminal - 1);
+ * ARENA guarda todas as produções já invertidas, em sequência, e a
+ * produção p ocupa ARENA[OFFSETS[p] .. OFFSETS[p + 1]). Produções vazias
+ * (só EPSILON) ficam com tamanho zero, então expandir uma produção é um
+ * único System.arraycopy para a pilha.
+ */
+final class ParserTables implements ParserConstants {
+
+    static final int TERMINALS = PARSER_TABLE[0].length;
+
+    static final int[] PREDICT;
+    static final int[] ARENA;
+    static final int[] OFFSETS;
+
+    static {
+        int[] predict = new int[PARSER_TABLE.length * TERMINALS];
+        for (int nt = 0; nt < PARSER_TABLE.length; nt++) {
+            System.arraycopy(PARSER_TABLE[nt], 0, predict, nt * TERMINALS, TERMINALS);
+        }
+
+        int[] offsets = new int[PRODUCTIONS.length + 1];
+        int size = 0;
+        for (int p = 0; p < PRODUCTIONS.length; p++) {
+            offsets[p] = size;
+            size += isEpsilon(PRODUCTIONS[p]) ? 0 : PRODUCTIONS[p].length;
+        }
+        offsets[PRODUCTIONS.length] = size;
+
+        int[] arena = new int[size];
+        for (int p = 0; p < PRODUCTIONS.length; p++) {
+            int[] production = PRODUCTIONS[p];
+            int at = offsets[p];
+            for (int i = offsets[p + 1] - at - 1; i >= 0; i--) {
+                arena[at++] = production[i];
+            }
+        }
+
+        PREDICT = predict;
+        ARENA = arena;
+        OFFSETS = offsets;
+    }
+
+    private ParserTables() {}
+
+    private static boolean isEpsilon(int[] production) {
+        return production.length == 1 && production[0] == Constants.EPSILON;
+    }
+
+    /** Produção prevista para o não-terminal e o terminal, ou -1. */
+    static int predict(int nonTerminal, int terminal) {
+        return PREDICT[(nonTerminal - FIRST_NON_TERMINAL) * TERMINALS + terminal - 1];
+    }
+}
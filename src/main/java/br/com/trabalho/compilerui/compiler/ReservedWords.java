@@ -0,0 +1,112 @@
+package br.com.trabalho.compilerui.compiler;
+
+/**
+ * Reconhecedor de palavras-reservadas por hash perfeito, montado na carga
+ * da classe a partir de SPECIAL_CASES_KEYS/VALUES (os casos especiais de
+ * identificador). O hash usa tamanho, 1º, 2º e último caracteres; os
+ * multiplicadores são escolhidos de forma que nenhuma palavra colida, então
+ * cada consulta compara os caracteres de no máximo um candidato.
+ */
+final class ReservedWords implements ScannerConstants {
+
+    private static final int BASE = Constants.t_identificador;
+
+    private static final char[][] KEYS;
+    private static final int[] VALUES;
+    private static final int MASK;
+    private static final int M1;
+    private static final int M2;
+
+    static {
+        int from = SPECIAL_CASES_INDEXES[BASE];
+        int to   = SPECIAL_CASES_INDEXES[BASE + 1];
+
+        char[][] keys = null;
+        int[] values = null;
+        int mask = 0, m1 = 0, m2 = 0;
+
+        search:
+        for (int size = Integer.highestOneBit(Math.max(1, to - from)) * 2; size <= 1024; size *= 2) {
+            for (m1 = 1; m1 < 64; m1++) {
+                for (m2 = 1; m2 < 64; m2++) {
+                    mask = size - 1;
+                    keys = new char[size][];
+                    values = new int[size];
+                    if (fill(from, to, keys, values, mask, m1, m2)) break search;
+                    keys = null;
+                }
+            }
+        }
+        if (keys == null) {
+            throw new IllegalStateException("Não foi possível montar o hash das palavras-reservadas");
+        }
+
+        KEYS = keys;
+        VALUES = values;
+        MASK = mask;
+        M1 = m1;
+        M2 = m2;
+    }
+
+    private ReservedWords() {}
+
+    private static boolean fill(int from, int to, char[][] keys, int[] values, int mask, int m1, int m2) {
+        for (int i = from; i < to; i++) {
+            char[] key = SPECIAL_CASES_KEYS[i].toCharArray();
+            int slot = hash(key, 0, key.length, mask, m1, m2);
+            if (keys[slot] != null) return false;
+            keys[slot] = key;
+            values[slot] = SPECIAL_CASES_VALUES[i];
+        }
+        return true;
+    }
+
+    private static int hash(char[] chars, int offset, int length, int mask, int m1, int m2) {
+        char second = length > 1 ? chars[offset + 1] : 0;
+        return (chars[offset] * m1 + second * m2 + chars[offset + length - 1] + length) & mask;
+    }
+
+    /** Token da palavra-reservada em chars[offset..offset+length), ou base se não for uma. */
+    static int lookup(int base, char[] chars, int offset, int length) {
+        if (base != BASE) return binarySearch(base, chars, offset, length);
+        if (length == 0) return base;
+
+        int slot = hash(chars, offset, length, MASK, M1, M2);
+        char[] key = KEYS[slot];
+        if (key == null || key.length != length) return base;
+
+        for (int i = 0; i < length; i++) {
+            if (key[i] != chars[offset + i]) return base;
+        }
+        return VALUES[slot];
+    }
+
+    /** Busca binária do GALS sobre SPECIAL_CASES_KEYS, comparando direto os caracteres. */
+    static int binarySearch(int base, char[] chars, int offset, int length) {
+        int start = SPECIAL_CASES_INDEXES[base];
+        int end   = SPECIAL_CASES_INDEXES[base + 1] - 1;
+
+        while (start <= end) {
+            int half = (start + end) / 2;
+            int comp = compare(SPECIAL_CASES_KEYS[half], chars, offset, length);
+
+            if (comp == 0)
+                return SPECIAL_CASES_VALUES[half];
+            else if (comp < 0)
+                start = half + 1;
+            else  //(comp > 0)
+                end = half - 1;
+        }
+
+        return base;
+    }
+
+    private static int compare(String key, char[] chars, int offset, int length) {
+        int n = Math.min(key.length(), length);
+        for (int i = 0; i < n; i++) {
+            int diff = key.charAt(i) - chars[offset + i];
+            if (diff != 0) return diff;
+        }
+        return key.length() - length;
+    }
+}
@@ -1,5 +1,6 @@
 package br.com.trabalho.compilerui.compiler;
 
+import java.math.BigDecimal;
 import java.util.*;
 
 public class SemanticContext {
@@ -8,22 +9,62 @@ public class SemanticContext {
     private String operadorRelacional = "";
     private String tipoAtual = ""; // tipo lido em <simples> para uso em declaração
 
-    // Código objeto IL
-    private final StringBuilder codigoObjeto = new StringBuilder();
-
-    // Pilhas
-    private final Deque<String> pilhaTipos   = new ArrayDeque<>();
-    private final Deque<String> pilhaRotulos = new ArrayDeque<>();
+    // Código objeto IL: as instruções ficam em "codigo" até o fim do
+    // comando (pilha de tipos vazia) e então são escritas em "saida"
+    private final Emitter saida;
+    private final CodigoIL codigo = new CodigoIL();
+    private final EscritorIL escritor;
+    private final OtimizadorIL otimizador; // null com a otimização desligada
+
+    // Pilhas (a de tipos guarda Tipo.codigo(); a de rótulos, o número do rótulo
+    // ou, num if de condição constante, um dos marcadores IF_* abaixo)
+    private byte[] pilhaTipos = new byte[16];
+    private int alturaPilhaTipos = 0;
+    private int[] pilhaRotulos = new int[16];
+    private int alturaPilhaRotulos = 0;
+
+    // Ao lado de cada tipo da pilha: onde o código do valor começa em
+    // "codigo" e, se o valor é conhecido na compilação (só com a otimização
+    // ligada), qual é (números em float64, como no IL; bool como 0 ou 1)
+    private int[] inicioValor = new int[16];
+    private boolean[] constante = new boolean[16];
+    private double[] valorConstante = new double[16];
+
+    // if de condição constante: o bloco morto não gera código
+    private static final int IF_VERDADEIRO = -1;      // then vivo, sem else ainda
+    private static final int IF_VERDADEIRO_ELSE = -2; // dentro do else morto
+    private static final int IF_FALSO = -3;           // dentro do then morto
+    private static final int IF_FALSO_ELSE = -4;      // else vivo
+    private int blocosMortos = 0; // > 0: o código gerado é descartado
 
     // Lista de identificadores em uso nas ações #119 e #122
     private final List<String> listaIdentificadores = new ArrayList<>();
 
-    // Tabela de símbolos: id -> tipo (bool, int64, float64, string)
-    private final Map<String, String> tabelaSimbolos = new LinkedHashMap<>();
+    // Tabela de símbolos: id -> slot; o slot indexa tipo e id, na ordem de declaração
+    private final Map<String, Integer> slots = new HashMap<>();
+    private byte[] tipoPorSlot = new byte[16];
+    private String[] idPorSlot = new String[16];
 
     // Contador de rótulos para if/else/do-until
     private int contadorRotulos = 0;
 
+    /** Código IL guardado em memória (getCodigoFinal). */
+    public SemanticContext() {
+        this(new StringEmitter());
+    }
+
+    /** Código IL escrito em "saida" à medida que é gerado, com dobra de constantes e otimização peephole. */
+    public SemanticContext(Emitter saida) {
+        this(saida, true);
+    }
+
+    /** Com otimizar = false o IL sai exatamente como o esquema de tradução o gera. */
+    public SemanticContext(Emitter saida, boolean otimizar) {
+        this.saida = saida;
+        this.escritor = new EscritorIL(this, saida);
+        this.otimizador = otimizar ? new OtimizadorIL(this) : null;
+    }
+
     // ===== Getters / Setters simples =====
 
     public String getOperadorRelacional() {
@@ -42,51 +83,79 @@ public class SemanticContext {
         this.tipoAtual = tipoAtual;
     }
 
-    public StringBuilder getCodigoObjeto() {
-        return codigoObjeto;
+    public Emitter getSaida() {
+        return saida;
     }
 
-    public Deque<String> getPilhaTipos() {
-        return pilhaTipos;
+    public List<String> getListaIdentificadores() {
+        return listaIdentificadores;
     }
 
-    public Deque<String> getPilhaRotulos() {
-        return pilhaRotulos;
+    // ===== Helpers para rótulos =====
+
+    /** Cria um rótulo novo: 0, 1, 2, ... (escritos como L0, L1, L2, ...) */
+    public int novoRotulo() {
+        return contadorRotulos++;
     }
 
-    public List<String> getListaIdentificadores() {
-        return listaIdentificadores;
+    private void pushRotulo(int rotulo) {
+        if (alturaPilhaRotulos == pilhaRotulos.length) {
+            pilhaRotulos = Arrays.copyOf(pilhaRotulos, alturaPilhaRotulos * 2);
+        }
+        pilhaRotulos[alturaPilhaRotulos++] = rotulo;
     }
 
-    public Map<String, String> getTabelaSimbolos() {
-        return tabelaSimbolos;
+    private int popRotulo() {
+        if (alturaPilhaRotulos == 0) {
+            throw new IllegalStateException("Pilha de rótulos vazia");
+        }
+        return pilhaRotulos[--alturaPilhaRotulos];
     }
 
-    // ===== Helpers para rótulos =====
+    // ===== Helpers para tipos =====
 
-    /** Cria um rótulo novo: L0, L1, L2, ... */
-    public String novoRotulo() {
-        return "L" + (contadorRotulos++);
+    /** Empilha tipo de expressão (chamar antes de gerar o código do valor). */
+    public void pushTipo(Tipo tipo) {
+        empilhar(tipo, codigo.tamanho());
     }
 
-    // ===== Helpers para tipos =====
+    /** Empilha o tipo de um valor cujo código começa em codigo[inicio]. */
+    private void empilhar(Tipo tipo, int inicio) {
+        if (alturaPilhaTipos == pilhaTipos.length) {
+            int n = alturaPilhaTipos * 2;
+            pilhaTipos = Arrays.copyOf(pilhaTipos, n);
+            inicioValor = Arrays.copyOf(inicioValor, n);
+            constante = Arrays.copyOf(constante, n);
+            valorConstante = Arrays.copyOf(valorConstante, n);
+        }
+        inicioValor[alturaPilhaTipos] = inicio;
+        constante[alturaPilhaTipos] = false;
+        pilhaTipos[alturaPilhaTipos++] = tipo.codigo();
+    }
 
-    /** Empilha tipo de expressão. */
-    public void pushTipo(String tipo) {
-        pilhaTipos.push(tipo);
+    private void empilharConstante(Tipo tipo, int inicio, double valor) {
+        empilhar(tipo, inicio);
+        if (otimizador != null) {
+            constante[alturaPilhaTipos - 1] = true;
+            valorConstante[alturaPilhaTipos - 1] = valor;
+        }
     }
 
     /** Desempilha tipo, lança IllegalStateException se vazio. */
-    public String popTipo() {
-        if (pilhaTipos.isEmpty()) {
+    public Tipo popTipo() {
+        if (alturaPilhaTipos == 0) {
             throw new IllegalStateException("Pilha de tipos vazia");
         }
-        return pilhaTipos.pop();
+        return Tipo.deCodigo(pilhaTipos[--alturaPilhaTipos]);
     }
 
     /** Consulta o topo sem remover (ou null se vazia). */
-    public String peekTipo() {
-        return pilhaTipos.peek();
+    public Tipo peekTipo() {
+        return alturaPilhaTipos == 0 ? null : Tipo.deCodigo(pilhaTipos[alturaPilhaTipos - 1]);
+    }
+
+    public int getAlturaPilhaTipos() {
+        return alturaPilhaTipos;
     }
 
     // ===== Helpers para identificadores =====
@@ -95,53 +164,126 @@ public class SemanticContext {
         listaIdentificadores.add(id);
     }
 
-    public List<String> consumirListaIdentificadores() {
-        List<String> copia = new ArrayList<>(listaIdentificadores);
+    /** Ação #119: declara os ids da lista com o tipo atual e esvazia a lista. */
+    public void declararIdentificadores() {
+        Tipo tipo = Tipo.daLinguagem(tipoAtual);
+        for (int i = 0; i < listaIdentificadores.size(); i++) {
+            declararSimbolo(listaIdentificadores.get(i), tipo);
+        }
         listaIdentificadores.clear();
-        return copia;
+    }
+
+    /** Ação #122: o id da atribuição (ou null se a lista está vazia); esvazia a lista. */
+    public String consumirIdentificadorAtribuido() {
+        String id = listaIdentificadores.isEmpty() ? null : listaIdentificadores.get(0);
+        listaIdentificadores.clear();
+        return id;
     }
 
     // ===== Helpers para tabela de símbolos =====
 
     /**
-     * Registra uma variável na tabela de símbolos.
-     * tipoFonte = "int", "float", "string", "bool"
-     * tipoIL    = "int64", "float64", "string", "bool"
+     * Registra uma variável na tabela de símbolos, no próximo slot livre
+     * (redeclarar troca o tipo e mantém o slot).
      */
-    public void declararSimbolo(String id, String tipoFonte) {
-        String tipoIL = switch (tipoFonte) {
-            case "int"    -> "int64";
-            case "float"  -> "float64";
-            case "string" -> "string";
-            case "bool"   -> "bool";
-            default       -> tipoFonte; // fallback
-        };
-
-        // registra na tabela de símbolos
-        tabelaSimbolos.put(id, tipoIL);
+    public void declararSimbolo(String id, Tipo tipo) {
+        Integer slot = slots.get(id);
+        if (slot == null) {
+            int n = slots.size();
+            if (n == idPorSlot.length) {
+                idPorSlot = Arrays.copyOf(idPorSlot, n * 2);
+                tipoPorSlot = Arrays.copyOf(tipoPorSlot, n * 2);
+            }
+            idPorSlot[n] = id;
+            slot = n;
+            slots.put(id, slot);
+        }
+        tipoPorSlot[slot] = tipo.codigo();
 
         // gera declaração da variável em IL, conforme esquema:
         // .locals (tipo id)
-        emitirLinha(".locals (" + tipoIL + " " + id + ")");
+        codigo.adicionar(OpIL.LOCALS, slot);
+    }
+
+    /** Tipo da variável, ou null se não foi declarada. */
+    public Tipo tipoDe(String id) {
+        Integer slot = slots.get(id);
+        return slot == null ? null : Tipo.deCodigo(tipoPorSlot[slot]);
     }
 
-    public String tipoDe(String id) {
-        return tabelaSimbolos.get(id);
+    /** Slot da variável (0, 1, 2, ... na ordem de declaração), ou -1 se não foi declarada. */
+    public int slotDe(String id) {
+        Integer slot = slots.get(id);
+        return slot == null ? -1 : slot;
+    }
+
+    public int getQuantidadeSimbolos() {
+        return slots.size();
+    }
+
+    public String idDoSlot(int slot) {
+        return idPorSlot[slot];
+    }
+
+    public Tipo tipoDoSlot(int slot) {
+        return Tipo.deCodigo(tipoPorSlot[slot]);
     }
 
     // ===== Helpers para código IL =====
 
+    /** Linha copiada como está para o IL. */
     public void emitirLinha(String linha) {
-        codigoObjeto.append(linha).append('\n');
+        codigo.adicionar(OpIL.TEXTO, linha);
+    }
+
+    private void emitir(int op) {
+        codigo.adicionar(op);
+    }
+
+    /** Chamada a um dos métodos de OpIL.CHAMADAS. */
+    private void chamar(int metodo) {
+        codigo.adicionar(OpIL.CALL, metodo);
+    }
+
+    /**
+     * Fim de uma ação semântica: se não há expressão pela metade (pilha de
+     * tipos vazia), o código do comando vai para a saída.
+     */
+    public void concluirAcao() {
+        if (alturaPilhaTipos == 0 && codigo.tamanho() > 0) {
+            if (blocosMortos > 0) {
+                codigo.limpar(); // comando dentro de um bloco que nunca executa
+            } else {
+                descarregar();
+            }
+        }
+    }
+
+    /** Escreve na saída as instruções acumuladas (com um NullEmitter, só as descarta). */
+    public void descarregar() {
+        if (otimizador != null) {
+            otimizador.otimizar(codigo);
+        }
+        if (saida != NullEmitter.INSTANCE) {
+            escritor.escrever(codigo);
+        }
+        codigo.limpar();
+    }
+
+    /** Instruções geradas pelo esquema de tradução (sem contar .locals e rótulos). */
+    public long getInstrucoesGeradas() {
+        return otimizador != null ? otimizador.getInstrucoesGeradas() : 0;
     }
 
-    public void emitirSemQuebra(String trecho) {
-        codigoObjeto.append(trecho);
+    /** Instruções que a otimização peephole tirou do código gerado. */
+    public long getInstrucoesRemovidas() {
+        return otimizador != null ? otimizador.getInstrucoesRemovidas() : 0;
     }
 
-    /** Retorna o código IL completo em string. */
+    /** Retorna o código IL completo em string (null se foi escrito num arquivo). */
     public String getCodigoFinal() {
-        return codigoObjeto.toString();
+        descarregar();
+        return saida instanceof StringEmitter ? saida.toString() : null;
     }
 
     // ===== Helpers específicos para o programa IL =====
@@ -161,7 +303,7 @@ public class SemanticContext {
     /** Fecha o método e a classe do programa IL (ação #101). */
     public void emitirRodapePrograma() {
         emitirLinha("// fim de programa");
-        emitirLinha("ret");
+        emitir(OpIL.RET);
         emitirLinha(" }");
         emitirLinha("}");
     }
@@ -170,238 +312,416 @@ public class SemanticContext {
 
     public void emitirConstanteInteira(String lexeme) {
         // Esquema: empilhar tipo int64, gerar ldc.i8 e converter para float64
-        emitirLinha("ldc.i8 " + lexeme);
-        emitirLinha("conv.r8");
-        pushTipo("int64"); // tipo da linguagem fonte
+        int inicio = codigo.tamanho();
+        codigo.adicionar(OpIL.LDC_I8, lexeme);
+        emitir(OpIL.CONV_R8);
+        // tipo da linguagem fonte
+        empilharConstante(Tipo.INT64, inicio, otimizador != null ? Long.parseLong(lexeme) : 0);
     }
 
     public void emitirConstanteFloat(String lexeme) {
-        emitirLinha("ldc.r8 " + lexeme);
-        pushTipo("float64");
+        int inicio = codigo.tamanho();
+        codigo.adicionar(OpIL.LDC_R8, lexeme);
+        empilharConstante(Tipo.FLOAT64, inicio, otimizador != null ? Double.parseDouble(lexeme) : 0);
     }
 
     public void emitirConstanteString(String lexeme) {
-        emitirLinha("ldstr " + lexeme);
-        pushTipo("string");
+        int inicio = codigo.tamanho();
+        codigo.adicionar(OpIL.LDSTR, lexeme);
+        empilhar(Tipo.STRING, inicio);
     }
 
     public void emitirConstanteTrue() {
-        emitirLinha("ldc.i4.1");
-        pushTipo("bool");
+        int inicio = codigo.tamanho();
+        emitir(OpIL.LDC_I4_1);
+        empilharConstante(Tipo.BOOL, inicio, 1);
     }
 
     public void emitirConstanteFalse() {
-        emitirLinha("ldc.i4.0");
-        pushTipo("bool");
+        int inicio = codigo.tamanho();
+        emitir(OpIL.LDC_I4_0);
+        empilharConstante(Tipo.BOOL, inicio, 0);
+    }
+
+    // ===== Dobra de constantes =====
+    //
+    // Com a otimização ligada, uma operação cujos operandos são conhecidos na
+    // compilação é feita aqui: o código dos operandos (que está no fim de
+    // "codigo", a partir do início do operando da esquerda) dá lugar a uma
+    // única constante. As contas são em double, como as do IL em float64.
+
+    /** Se as entradas "a" e "b" da pilha (já desempilhadas) são constantes do mesmo tipo de valor. */
+    private boolean constantes(int a, Tipo tipoA, int b, Tipo tipoB) {
+        return constante[a] && constante[b]
+                && (tipoA == Tipo.BOOL) == (tipoB == Tipo.BOOL)
+                && tipoA != Tipo.STRING && tipoB != Tipo.STRING;
+    }
+
+    /**
+     * Troca o código a partir de codigo[inicio] pela constante "valor" e a
+     * empilha; false se o valor não tem como ser escrito num ldc.r8.
+     */
+    private boolean empilharDobrada(Tipo tipo, int inicio, double valor) {
+        if (tipo == Tipo.BOOL) {
+            codigo.truncar(inicio);
+            emitir(valor != 0 ? OpIL.LDC_I4_1 : OpIL.LDC_I4_0);
+        } else {
+            String literal = literalFloat(valor);
+            if (literal == null) {
+                return false;
+            }
+            codigo.truncar(inicio);
+            codigo.adicionar(OpIL.LDC_R8, literal);
+        }
+        empilharConstante(tipo, inicio, valor);
+        return true;
+    }
+
+    /**
+     * O double em decimal sem expoente, que o ilasm lê de volta no mesmo
+     * valor; null para infinito, NaN, -0.0 ou números longos demais.
+     */
+    private static String literalFloat(double valor) {
+        if (Double.isNaN(valor) || Double.isInfinite(valor)
+                || (valor == 0 && Double.doubleToRawLongBits(valor) != 0)) {
+            return null;
+        }
+        String s = Double.toString(valor);
+        if (s.indexOf('E') >= 0) {
+            s = new BigDecimal(s).toPlainString();
+            if (s.length() > 24) {
+                return null;
+            }
+            if (s.indexOf('.') < 0) {
+                s += ".0";
+            }
+        }
+        return s;
     }
 
     // ===== Operações aritméticas =====
 
-    public void operarAritmeticaBinaria(String opIL) {
+    /** op = OpIL.ADD, SUB, MUL ou DIV. */
+    public void operarAritmeticaBinaria(int op) {
         // desempilha tipos dos operandos (direita e esquerda)
-        String tipo2 = popTipo(); // operando da direita
-        String tipo1 = popTipo(); // operando da esquerda
+        Tipo tipo2 = popTipo(); // operando da direita
+        Tipo tipo1 = popTipo(); // operando da esquerda
 
         // regra simples: se algum for float64, resultado é float64; senão int64
-        String resultado;
-        if ("float64".equals(tipo1) || "float64".equals(tipo2)) {
-            resultado = "float64";
+        Tipo resultado;
+        if (tipo1 == Tipo.FLOAT64 || tipo2 == Tipo.FLOAT64) {
+            resultado = Tipo.FLOAT64;
         } else {
-            resultado = "int64";
+            resultado = Tipo.INT64;
+        }
+
+        int esq = alturaPilhaTipos, dir = esq + 1; // entradas recém-desempilhadas
+        if (constantes(esq, tipo1, dir, tipo2) && tipo1 != Tipo.BOOL
+                && empilharDobrada(resultado, inicioValor[esq], calcular(op, valorConstante[esq], valorConstante[dir]))) {
+            return;
         }
 
         // empilha tipo resultante
-        pushTipo(resultado);
+        empilhar(resultado, inicioValor[esq]);
 
         // gera código IL correspondente: add, sub, mul, div
-        emitirLinha(opIL);
+        emitir(op);
+    }
+
+    private static double calcular(int op, double a, double b) {
+        switch (op) {
+            case OpIL.ADD: return a + b;
+            case OpIL.SUB: return a - b;
+            case OpIL.MUL: return a * b;
+            case OpIL.DIV: return a / b;
+            case OpIL.AND: return (int) a & (int) b;
+            case OpIL.OR:  return (int) a | (int) b;
+            default: throw new IllegalArgumentException("operação sem dobra: " + OpIL.nome(op));
+        }
     }
 
     public void operarMenosUnario() {
+        int topo = alturaPilhaTipos - 1;
+        if (topo >= 0 && constante[topo] && peekTipo() != Tipo.BOOL && peekTipo() != Tipo.STRING) {
+            Tipo tipo = popTipo();
+            if (empilharDobrada(tipo, inicioValor[topo], -valorConstante[topo])) {
+                return;
+            }
+            empilhar(tipo, inicioValor[topo]); // sem literal para o valor: fica o neg
+        }
         // Em IL, usamos 'neg' para trocar o sinal do topo da pilha
-        emitirLinha("neg");
+        emitir(OpIL.NEG);
         // Tipo na pilha não muda, então não mexemos em pilha_tipos aqui
+        if (topo >= 0) {
+            constante[topo] = false;
+        }
     }
 
     // ===== Operadores relacionais =====
 
     public void aplicarOperadorRelacional() {
         // desempilha tipos (não vamos validar compatibilidade, conforme esquema)
-        String tipo2 = popTipo(); // direita
-        String tipo1 = popTipo(); // esquerda
+        Tipo tipo2 = popTipo(); // direita
+        Tipo tipo1 = popTipo(); // esquerda
+
+        int esq = alturaPilhaTipos, dir = esq + 1;
+        if (constantes(esq, tipo1, dir, tipo2)) {
+            double a = valorConstante[esq], b = valorConstante[dir];
+            boolean r;
+            switch (operadorRelacional) {
+                case "==": r = a == b; break;
+                case "~=": r = a != b; break;
+                case "<":  r = a < b;  break;
+                case ">":  r = a > b;  break;
+                default: throw new IllegalStateException("operador relacional desconhecido: " + operadorRelacional);
+            }
+            empilharDobrada(Tipo.BOOL, inicioValor[esq], r ? 1 : 0);
+            return;
+        }
 
         // resultado de comparação é sempre bool
-        pushTipo("bool");
+        empilhar(Tipo.BOOL, inicioValor[esq]);
 
         // gera IL conforme o operador armazenado
         switch (operadorRelacional) {
             case "==":
-                emitirLinha("ceq");
+                emitir(OpIL.CEQ);
                 break;
             case "~=":
                 // negação de igualdade: ceq, depois compara com 0
-                emitirLinha("ceq");
-                emitirLinha("ldc.i4.0");
-                emitirLinha("ceq");
+                emitir(OpIL.CEQ);
+                emitir(OpIL.LDC_I4_0);
+                emitir(OpIL.CEQ);
                 break;
             case "<":
-                emitirLinha("clt");
+                emitir(OpIL.CLT);
                 break;
             case ">":
-                emitirLinha("cgt");
+                emitir(OpIL.CGT);
                 break;
         }
     }
 
     // ===== Operadores lógicos =====
 
-    public void operarLogicoBinario(String opIL) {
+    /** op = OpIL.AND ou OR. */
+    public void operarLogicoBinario(int op) {
         // desempilha dois tipos e empilha bool
-        String t2 = popTipo();
-        String t1 = popTipo();
-        pushTipo("bool");
-        emitirLinha(opIL); // and / or
+        Tipo tipo2 = popTipo();
+        Tipo tipo1 = popTipo();
+        int esq = alturaPilhaTipos, dir = esq + 1;
+        if (constantes(esq, tipo1, dir, tipo2) && tipo1 == Tipo.BOOL) {
+            empilharDobrada(Tipo.BOOL, inicioValor[esq], calcular(op, valorConstante[esq], valorConstante[dir]));
+            return;
+        }
+        if (tipo1 == Tipo.BOOL && tipo2 == Tipo.BOOL && (constante[esq] || constante[dir])) {
+            // um lado conhecido: "x and false" é false e "x and true" é x (or
+            // ao contrário); as expressões não têm efeito colateral, então o
+            // código do outro lado pode sumir
+            int lado = constante[esq] ? esq : dir;
+            boolean absorve = (valorConstante[lado] != 0) == (op == OpIL.OR);
+            if (absorve) {
+                empilharDobrada(Tipo.BOOL, inicioValor[esq], valorConstante[lado]);
+            } else {
+                if (lado == esq) {
+                    codigo.remover(inicioValor[esq], inicioValor[dir]);
+                } else {
+                    codigo.truncar(inicioValor[dir]);
+                }
+                empilhar(Tipo.BOOL, inicioValor[esq]);
+            }
+            return;
+        }
+        empilhar(Tipo.BOOL, inicioValor[esq]);
+        emitir(op); // and / or
     }
 
     public void operarNot() {
+        int topo = alturaPilhaTipos - 1;
+        if (topo >= 0 && constante[topo] && peekTipo() == Tipo.BOOL) {
+            popTipo();
+            empilharDobrada(Tipo.BOOL, inicioValor[topo], valorConstante[topo] == 0 ? 1 : 0);
+            return;
+        }
         // not: resultado é bool; usamos padrão "== 0"
-        emitirLinha("ldc.i4.0");
-        emitirLinha("ceq");
+        emitir(OpIL.LDC_I4_0);
+        emitir(OpIL.CEQ);
         // tipo continua bool, então não mexemos na pilha_tipos
+        if (topo >= 0) {
+            constante[topo] = false;
+        }
     }
 
     // ===== Saída: print =====
 
     public void escreverExpressaoTopo() {
-        String tipo = popTipo(); // tipo da linguagem (bool, int64, float64, string)
-
-        if ("int64".equals(tipo)) {
-            // valores int64 foram tratados como float64 em IL → converter de volta para int64
-            emitirLinha("conv.i8");
-            emitirLinha("call void [mscorlib]System.Console::Write(int64)");
-        } else if ("float64".equals(tipo)) {
-            emitirLinha("call void [mscorlib]System.Console::Write(float64)");
-        } else if ("string".equals(tipo)) {
-            emitirLinha("call void [mscorlib]System.Console::Write(string)");
-        } else if ("bool".equals(tipo)) {
-            emitirLinha("call void [mscorlib]System.Console::Write(bool)");
-        } else {
-            // fallback: escreve como string
-            emitirLinha("call void [mscorlib]System.Console::Write(string)");
+        Tipo tipo = popTipo(); // tipo da linguagem (bool, int64, float64, string)
+
+        switch (tipo) {
+            case INT64:
+                // valores int64 foram tratados como float64 em IL → converter de volta para int64
+                emitir(OpIL.CONV_I8);
+                chamar(OpIL.WRITE_INT64);
+                break;
+            case FLOAT64:
+                chamar(OpIL.WRITE_FLOAT64);
+                break;
+            case STRING:
+                chamar(OpIL.WRITE_STRING);
+                break;
+            case BOOL:
+                chamar(OpIL.WRITE_BOOL);
+                break;
         }
     }
 
     public void escreverQuebraDeLinha() {
-        emitirLinha("call void [mscorlib]System.Console::WriteLine()");
+        chamar(OpIL.WRITELINE);
     }
 
     // ===== Entrada: read =====
 
     public void escreverStringConstante(String lexeme) {
         // lexeme já vem com aspas
-        emitirLinha("ldstr " + lexeme);
-        emitirLinha("call void [mscorlib]System.Console::Write(string)");
+        codigo.adicionar(OpIL.LDSTR, lexeme);
+        chamar(OpIL.WRITE_STRING);
     }
 
-    public void lerEntradaEmId(String id, int pos) throws SemanticError {
-        String tipo = tipoDe(id);
+    public void lerEntradaEmId(String id, Token token) throws SemanticError {
+        int slot = slotDe(id);
 
-        if (tipo == null) {
-            throw new SemanticError("identificador nao declarado: " + id, pos);
+        if (slot < 0) {
+            throw erro("identificador nao declarado: " + id, token);
         }
+        Tipo tipo = tipoDoSlot(slot);
 
-        if ("bool".equals(tipo)) {
+        if (tipo == Tipo.BOOL) {
             // esquema: bool é inválido para comando de entrada
-            throw new SemanticError("id invalido para comando de entrada", pos);
+            throw erro("id invalido para comando de entrada", token);
         }
 
         // Ler uma linha da entrada padrão
-        emitirLinha("call string [mscorlib]System.Console::ReadLine()");
-
-        if ("int64".equals(tipo)) {
-            emitirLinha("call int64 [mscorlib]System.Int64::Parse(string)");
-            emitirLinha("stloc " + id);
-        } else if ("float64".equals(tipo)) {
-            emitirLinha("call float64 [mscorlib]System.Double::Parse(string)");
-            emitirLinha("stloc " + id);
-        } else if ("string".equals(tipo)) {
-            // já é string
-            emitirLinha("stloc " + id);
-        } else {
-            // tipo estranho → trata como string
-            emitirLinha("stloc " + id);
+        chamar(OpIL.READLINE);
+
+        if (tipo == Tipo.INT64) {
+            chamar(OpIL.PARSE_INT64);
+        } else if (tipo == Tipo.FLOAT64) {
+            chamar(OpIL.PARSE_FLOAT64);
         }
+        // string: já é string
+        codigo.adicionar(OpIL.STLOC, slot);
     }
 
     // ===== Controle de fluxo: if / else =====
 
+    /** Se a entrada "topo" (já desempilhada) é uma condição bool conhecida na compilação. */
+    private boolean condicaoConstante(int topo) {
+        return constante[topo] && Tipo.deCodigo(pilhaTipos[topo]) == Tipo.BOOL;
+    }
+
     /** Ação #125 - após avaliar a expressão do if. */
     public void iniciarIf() {
         // consumir tipo da expressão condicional na pilha de tipos
-        if (!pilhaTipos.isEmpty()) {
-            pilhaTipos.pop();
+        if (alturaPilhaTipos > 0) {
+            int topo = --alturaPilhaTipos;
+            if (condicaoConstante(topo)) {
+                // sem teste: só um dos blocos gera código
+                codigo.truncar(inicioValor[topo]);
+                if (valorConstante[topo] != 0) {
+                    pushRotulo(IF_VERDADEIRO);
+                } else {
+                    pushRotulo(IF_FALSO);
+                    blocosMortos++;
+                }
+                return;
+            }
         }
 
-        String rotuloFimIf = novoRotulo();
-        pilhaRotulos.push(rotuloFimIf);
+        int rotuloFimIf = novoRotulo();
+        pushRotulo(rotuloFimIf);
 
         // se condição for falsa, salta para o fim (ou para o else, se existir)
-        emitirLinha("brfalse " + rotuloFimIf);
+        codigo.adicionar(OpIL.BRFALSE, rotuloFimIf);
     }
 
     /** Ação #126 - ao encontrar 'else'. */
     public void iniciarElse() {
         // rótulo que marcava o fim do bloco 'then'
-        String rotuloFimIf = pilhaRotulos.pop();
+        int rotuloFimIf = popRotulo();
+
+        if (rotuloFimIf == IF_VERDADEIRO) {
+            blocosMortos++;
+            pushRotulo(IF_VERDADEIRO_ELSE);
+            return;
+        }
+        if (rotuloFimIf == IF_FALSO) {
+            blocosMortos--;
+            pushRotulo(IF_FALSO_ELSE);
+            return;
+        }
 
         // novo rótulo para o fim total do if/else
-        String rotuloFimTotal = novoRotulo();
+        int rotuloFimTotal = novoRotulo();
 
         // salta para depois do else
-        emitirLinha("br " + rotuloFimTotal);
+        codigo.adicionar(OpIL.BR, rotuloFimTotal);
 
         // marca início do bloco else
-        emitirLinha(rotuloFimIf + ":");
+        codigo.adicionar(OpIL.ROTULO, rotuloFimIf);
 
         // empilha o novo rótulo para ser fechado em #127
-        pilhaRotulos.push(rotuloFimTotal);
+        pushRotulo(rotuloFimTotal);
     }
 
     /** Ação #127 - ao encontrar 'end' do if (com ou sem else). */
     public void finalizarIfElse() {
-        String rotuloFim = pilhaRotulos.pop();
-        emitirLinha(rotuloFim + ":");
+        int rotulo = popRotulo();
+        if (rotulo == IF_FALSO || rotulo == IF_VERDADEIRO_ELSE) {
+            blocosMortos--; // fim do bloco morto
+        } else if (rotulo != IF_VERDADEIRO && rotulo != IF_FALSO_ELSE) {
+            codigo.adicionar(OpIL.ROTULO, rotulo);
+        }
     }
 
     // ===== Controle de fluxo: do / until =====
 
     /** Ação #128 - início do 'do'. */
     public void iniciarDo() {
-        String rotuloInicio = novoRotulo();
-        pilhaRotulos.push(rotuloInicio);
-        emitirLinha(rotuloInicio + ":");
+        int rotuloInicio = novoRotulo();
+        pushRotulo(rotuloInicio);
+        codigo.adicionar(OpIL.ROTULO, rotuloInicio);
     }
 
     /** Ação #129 - após avaliar expressão do 'until'. */
     public void finalizarDoUntil() {
         // consumir tipo da expressão condicional na pilha de tipos
-        if (!pilhaTipos.isEmpty()) {
-            pilhaTipos.pop();
+        if (alturaPilhaTipos > 0) {
+            int topo = --alturaPilhaTipos;
+            if (condicaoConstante(topo)) {
+                // until true: o corpo roda uma vez; until false: repete sempre
+                codigo.truncar(inicioValor[topo]);
+                int rotuloInicio = popRotulo();
+                if (valorConstante[topo] == 0) {
+                    codigo.adicionar(OpIL.BR, rotuloInicio);
+                }
+                return;
+            }
         }
 
-        String rotuloInicio = pilhaRotulos.pop();
+        int rotuloInicio = popRotulo();
         // until E -> repete enquanto E for falso -> brfalse
-        emitirLinha("brfalse " + rotuloInicio);
+        codigo.adicionar(OpIL.BRFALSE, rotuloInicio);
     }
 
-    public void atribuirParaIdentificador(String id, int pos) throws SemanticError {
-        String tipoVar = tipoDe(id);
-        if (tipoVar == null) {
-            throw new SemanticError("identificador nao declarado: " + id, pos);
+    public void atribuirParaIdentificador(String id, Token token) throws SemanticError {
+        int slot = slotDe(id);
+        if (slot < 0) {
+            throw erro("identificador nao declarado: " + id, token);
         }
+        Tipo tipoVar = tipoDoSlot(slot);
 
         // tipo da expressão calculada
-        String tipoExp = popTipo(); // não vamos validar compatibilidade fina aqui
+        popTipo(); // não vamos validar compatibilidade fina aqui
 
         // A regra geral:
         // - nossas expressões numéricas deixam um float64 na pilha IL
@@ -409,16 +729,39 @@ public class SemanticContext {
         // - se a variável é float64, NÃO convertemos (mantém r8)
         // - para bool/string, assumimos que a expressão já deixou o tipo correto
 
-        if ("int64".equals(tipoVar)) {
+        if (tipoVar == Tipo.INT64) {
             // precisamos armazenar como int64
-            emitirLinha("conv.i8");
-        } else if ("float64".equals(tipoVar)) {
-            // já está em r8, não faz conversão para inteiro
-            // NADA aqui
-        } else {
-            // bool, string etc: não mexemos
+            emitir(OpIL.CONV_I8);
+        }
+        // float64 já está em r8; bool e string: não mexemos
+
+        codigo.adicionar(OpIL.STLOC, slot);
+    }
+
+    /** Ação #130 - uso de identificador em expressão. */
+    public void carregarIdentificador(String id, Token token) throws SemanticError {
+        int slot = slotDe(id);
+        if (slot < 0) {
+            throw erro("identificador nao declarado: " + id, token);
         }
+        Tipo tipo = tipoDoSlot(slot);
+
+        // empilha tipo do id na pilha_tipos
+        empilhar(tipo, codigo.tamanho());
+
+        // gera código para carregar o valor armazenado em id
+        codigo.adicionar(OpIL.LDLOC, slot);
+
+        // se id for int64, converter para float64 em IL (conv.r8)
+        if (tipo == Tipo.INT64) {
+            emitir(OpIL.CONV_R8);
+        }
+    }
+
+    // ===== Erros =====
 
-        emitirLinha("stloc " + id);
+    /** Erro semântico apontando para o token, com a linha e a coluna do léxico. */
+    private static SemanticError erro(String msg, Token token) {
+        return new SemanticError(msg, token.getPosition(), token.getLine(), token.getColumn());
     }
 }
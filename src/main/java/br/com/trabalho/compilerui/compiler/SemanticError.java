@@ -7,6 +7,11 @@ public class SemanticError extends AnalysisError
         super(msg, position);
     }
 
+    public SemanticError(String msg, int position, int line, int column)
+    {
+        super(msg, position, line, column);
+    }
+
     public SemanticError(String msg)
     {
         super(msg);
@@ -1,15 +1,58 @@
 package br.com.trabalho.compilerui.compiler;
 
-import java.util.Stack;
-
 public class Sintatico implements Constants
 {
-    private Stack stack = new Stack();
-    private Token currentToken;
-    private Token previousToken;
+    // Pilha do LL(1) em vetor primitivo: sem boxing nem sincronização
+    private int[] stack = new int[256];
+    private int top;
     private Lexico scanner;
+    private TokenStream tokens;
     private Semantico semanticAnalyser;
 
+    /*
+     * Token corrente e anterior guardados em campos primitivos. Lendo do
+     * Lexico o lexema é criado a cada token (a janela do léxico pode ser
+     * descartada); lendo de um TokenStream ele só é criado quando uma ação
+     * semântica recebe o token.
+     */
+    private int currentId;
+    private int currentStart;
+    private int currentEnd;
+    private int currentLine;
+    private int currentColumn;
+    private String currentLexeme;
+    private int currentIndex;
+
+    private int previousId;
+    private int previousStart;
+    private int previousEnd;
+    private int previousLine;
+    private int previousColumn;
+    private String previousLexeme;
+    private int previousIndex;
+    private boolean hasPrevious;
+    private int tokenCount;
+
+    /*
+     * Recuperação de erros em modo pânico: o erro é guardado em "errors",
+     * a entrada é descartada até um token de sincronização (";", end,
+     * until, else ou fim) e a pilha é desempilhada até um símbolo que aceite
+     * esse token. Depois do primeiro erro as ações semânticas são desligadas.
+     */
+    private boolean recovery;
+
+    /*
+     * A cada CHECK_INTERVAL tokens o driver verifica se a thread foi
+     * interrompida (compilação cancelada) e informa o progresso, em
+     * offset do fonte, ao progressListener.
+     */
+    private static final int CHECK_INTERVAL = 4096;
+    private java.util.function.IntConsumer progressListener;
+
+    private java.util.List<AnalysisError> errors = new java.util.ArrayList<AnalysisError>();
+    private boolean actionsEnabled;
+    private int lastErrorTokenCount;
+
     private static final boolean isTerminal(int x)
     {
         return x < FIRST_NON_TERMINAL;
@@ -27,17 +70,8 @@ public class Sintatico implements Constants
 
     private boolean step() throws LexicalError, SyntaticError, SemanticError
     {
-        if (currentToken == null)
-        {
-            int pos = 0;
-            if (previousToken != null)
-                pos = previousToken.getPosition()+previousToken.getLexeme().length();
-
-            currentToken = new Token(DOLLAR, "$", pos);
-        }
-
-        int x = ((Integer)stack.pop()).intValue();
-        int a = currentToken.getId();
+        int x = stack[--top];
+        int a = currentId;
 
         if (x == EPSILON)
         {
@@ -47,18 +81,18 @@ public class Sintatico implements Constants
         {
             if (x == a)
             {
-                if (stack.empty())
+                if (top == 0)
                     return true;
                 else
                 {
-                    previousToken = currentToken;
-                    currentToken = scanner.nextToken();
+                    nextToken();
                     return false;
                 }
             }
             else
             {
-                throw new SyntaticError(PARSER_ERROR[x], currentToken.getPosition());
+                syntaxError(x);
+                return false;
             }
         }
         else if (isNonTerminal(x))
@@ -66,44 +100,252 @@ public class Sintatico implements Constants
             if (pushProduction(x, a))
                 return false;
             else
-                throw new SyntaticError(PARSER_ERROR[x], currentToken.getPosition());
+            {
+                syntaxError(x);
+                return false;
+            }
         }
         else // isSemanticAction(x)
         {
-            semanticAnalyser.executeAction(x-FIRST_SEMANTIC_ACTION, previousToken);
+            if (actionsEnabled)
+                executeAction(x-FIRST_SEMANTIC_ACTION);
             return false;
         }
     }
 
-    private boolean pushProduction(int topStack, int tokenInput)
+    private void executeAction(int action) throws SemanticError
     {
-        int p = PARSER_TABLE[topStack-FIRST_NON_TERMINAL][tokenInput-1];
-        if (p >= 0)
+        try
         {
-            int[] production = PRODUCTIONS[p];
-            //empilha a produção em ordem reversa
-            for (int i=production.length-1; i>=0; i--)
+            semanticAnalyser.executeAction(action, previousToken());
+        }
+        catch (SemanticError e)
+        {
+            if ( ! recovery )
+                throw e;
+
+            errors.add(e);
+            actionsEnabled = false;
+        }
+    }
+
+    /**
+     * Erro ao tentar casar "x" com o token corrente. Sem recuperação, lança
+     * o SyntaticError; com recuperação, registra o erro e deixa pilha e
+     * entrada num ponto de onde a análise pode continuar.
+     */
+    private void syntaxError(int x) throws LexicalError, SyntaticError
+    {
+        SyntaticError error = new SyntaticError(PARSER_ERROR[x], currentStart, currentLine, currentColumn);
+        if ( ! recovery )
+            throw error;
+
+        actionsEnabled = false;
+
+        // um novo erro sem nenhum token consumido desde o anterior é só
+        // efeito da recuperação: não é relatado e o token é descartado
+        if (tokenCount != lastErrorTokenCount)
+            errors.add(error);
+        else if (currentId != DOLLAR)
+            nextToken();
+        lastErrorTokenCount = tokenCount;
+
+        stack[top++] = x;
+        int saved = top;
+        while (true)
+        {
+            while ( ! isSync(currentId) )
+                nextToken();
+
+            for (int i = saved - 1; i >= 0; i--)
             {
-                stack.push(new Integer(production[i]));
+                int y = stack[i];
+                if (isTerminal(y) ? y == currentId
+                                  : isNonTerminal(y) && ParserTables.predict(y, currentId) >= 0)
+                {
+                    top = i + 1;
+                    lastErrorTokenCount = tokenCount;
+                    return;
+                }
             }
+
+            // ninguém na pilha aceita o token: descarta e sincroniza de novo
+            nextToken();
+        }
+    }
+
+    private void checkpoint()
+    {
+        if (Thread.currentThread().isInterrupted())
+            throw new java.util.concurrent.CancellationException("análise cancelada");
+
+        if (progressListener != null)
+            progressListener.accept(currentEnd);
+    }
+
+    private static boolean isSync(int token)
+    {
+        return token == t_TOKEN_41 // ";"
+            || token == t_pr_end
+            || token == t_pr_until
+            || token == t_pr_else
+            || token == DOLLAR;
+    }
+
+    private void nextToken() throws LexicalError
+    {
+        previousId = currentId;
+        previousStart = currentStart;
+        previousEnd = currentEnd;
+        previousLine = currentLine;
+        previousColumn = currentColumn;
+        previousLexeme = currentLexeme;
+        previousIndex = currentIndex;
+        hasPrevious = true;
+        if (++tokenCount % CHECK_INTERVAL == 0)
+            checkpoint();
+
+        if (tokens != null)
+        {
+            currentIndex++;
+            if (currentIndex < tokens.size())
+            {
+                currentId = tokens.id(currentIndex);
+                currentStart = tokens.start(currentIndex);
+                currentEnd = tokens.end(currentIndex);
+                currentLine = tokens.line(currentIndex);
+                currentColumn = tokens.column(currentIndex);
+                return;
+            }
+        }
+        else
+        {
+            currentId = scanner.nextTokenId();
+            if (currentId != DOLLAR)
+            {
+                currentStart = scanner.getTokenStart();
+                currentEnd = scanner.getTokenEnd();
+                currentLine = scanner.getTokenLine();
+                currentColumn = scanner.getTokenColumn();
+                currentLexeme = scanner.getLexeme();
+                return;
+            }
+        }
+
+        // fim da entrada: "$" logo após o último token (que não tem quebra de linha)
+        int pos = previousEnd;
+        currentId = DOLLAR;
+        currentStart = pos;
+        currentEnd = pos;
+        currentLine = previousLine;
+        currentColumn = previousColumn + (previousEnd - previousStart);
+        currentLexeme = "$";
+    }
+
+    private Token previousToken()
+    {
+        if (!hasPrevious)
+            return null;
+
+        String lexeme = previousLexeme;
+        if (lexeme == null)
+            lexeme = tokens.lexeme(previousIndex);
+        return new Token(previousId, lexeme, previousStart, previousLine, previousColumn);
+    }
+
+    private boolean pushProduction(int topStack, int tokenInput)
+    {
+        int p = ParserTables.predict(topStack, tokenInput);
+        if (p >= 0)
+        {
+            //a produção já está invertida na arena: basta copiá-la para a pilha
+            int from = ParserTables.OFFSETS[p];
+            int length = ParserTables.OFFSETS[p+1] - from;
+            if (top + length > stack.length)
+                stack = java.util.Arrays.copyOf(stack, Math.max(stack.length * 2, top + length));
+
+            System.arraycopy(ParserTables.ARENA, from, stack, top, length);
+            top += length;
             return true;
         }
         else
             return false;
     }
 
+    /**
+     * Liga a recuperação de erros: parse(...) não lança mais SyntaticError
+     * (nem SemanticError) e segue até o fim da entrada; os erros ficam em
+     * getErrors(), na ordem em que foram encontrados.
+     */
+    public void setRecovery(boolean recovery)
+    {
+        this.recovery = recovery;
+    }
+
+    /**
+     * Recebe, de tempos em tempos, o offset do fonte já analisado. Durante
+     * a análise, uma interrupção da thread encerra o parse com
+     * CancellationException.
+     */
+    public void setProgressListener(java.util.function.IntConsumer progressListener)
+    {
+        this.progressListener = progressListener;
+    }
+
+    /** Erros registrados no modo de recuperação durante o último parse. */
+    public java.util.List<AnalysisError> getErrors()
+    {
+        return java.util.Collections.unmodifiableList(errors);
+    }
+
     public void parse(Lexico scanner, Semantico semanticAnalyser) throws LexicalError, SyntaticError, SemanticError
     {
         this.scanner = scanner;
+        this.tokens = null;
+        run(semanticAnalyser);
+    }
+
+    /** Analisa uma sequência já tokenizada (ver TokenStream). */
+    public void parse(TokenStream tokens, Semantico semanticAnalyser) throws LexicalError, SyntaticError, SemanticError
+    {
+        this.scanner = null;
+        this.tokens = tokens;
+        run(semanticAnalyser);
+    }
+
+    private void run(Semantico semanticAnalyser) throws LexicalError, SyntaticError, SemanticError
+    {
         this.semanticAnalyser = semanticAnalyser;
 
-        stack.clear();
-        stack.push(new Integer(DOLLAR));
-        stack.push(new Integer(START_SYMBOL));
+        top = 0;
+        stack[top++] = DOLLAR;
+        stack[top++] = START_SYMBOL;
+
+        currentIndex = -1;
+        currentStart = currentEnd = 0;
+        currentLine = currentColumn = 1;
+        currentLexeme = null;
 
-        currentToken = scanner.nextToken();
+        errors.clear();
+        actionsEnabled = true;
+        tokenCount = 0;
+        lastErrorTokenCount = -1;
 
-        while ( ! step() )
-            ;
+        try
+        {
+            nextToken();
+            hasPrevious = false;
+
+            while ( ! step() )
+                ;
+        }
+        finally
+        {
+            // não segura a entrada nem o semântico depois da análise
+            this.scanner = null;
+            this.tokens = null;
+            this.semanticAnalyser = null;
+            currentLexeme = previousLexeme = null;
+        }
     }
 }
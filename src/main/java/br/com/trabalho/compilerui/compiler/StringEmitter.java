@@ -0,0 +1,22 @@
+package br.com.trabalho.compilerui.compiler;
+
+/** Emitter que guarda o código IL num StringBuilder; toString() devolve o código. */
+public class StringEmitter implements Emitter {
+
+    private final StringBuilder codigo = new StringBuilder();
+
+    @Override
+    public void emitir(String trecho) {
+        codigo.append(trecho);
+    }
+
+    @Override
+    public void emitir(char c) {
+        codigo.append(c);
+    }
+
+    @Override
+    public String toString() {
+        return codigo.toString();
+    }
+}
@@ -7,6 +7,11 @@ public class SyntaticError extends AnalysisError
         super(msg, position);
     }
 
+    public SyntaticError(String msg, int position, int line, int column)
+    {
+        super(msg, position, line, column);
+    }
+
     public SyntaticError(String msg)
     {
         super(msg);
@@ -42,15 +42,6 @@ final class SyntaxMessageBuilder {
         return String.valueOf(c);
     }
 
-    /** Converte offset para número de linha (1-based). */
-    static int toLineNumber(String src, int pos) {
-        if (pos <= 0) return 1;
-        int lines = 1;
-        int lim = Math.min(Math.max(pos, 0), src.length());
-        for (int i = 0; i < lim; i++) if (src.charAt(i) == '\n') lines++;
-        return lines;
-    }
-
     /** Heurística: quando parser para em 'end' faltando ',' ou ')', marcar linha anterior. */
     static int maybeShiftToPreviousLine(String source, int line, String found, String expected) {
         if ("end".equals(found) && (expected.contains(")") || expected.contains(","))) {
@@ -0,0 +1,49 @@
+package br.com.trabalho.compilerui.compiler;
+
+/**
+ * Tipos da linguagem, com o nome usado no IL. A pilha de tipos e a tabela
+ * de símbolos guardam o código (ordinal) em um byte.
+ */
+public enum Tipo {
+    INT64("int64"),
+    FLOAT64("float64"),
+    STRING("string"),
+    BOOL("bool");
+
+    private static final Tipo[] POR_CODIGO = values();
+
+    private final String il;
+
+    Tipo(String il) {
+        this.il = il;
+    }
+
+    /** Nome do tipo no IL: int64, float64, string ou bool. */
+    public String il() {
+        return il;
+    }
+
+    byte codigo() {
+        return (byte) ordinal();
+    }
+
+    static Tipo deCodigo(byte codigo) {
+        return POR_CODIGO[codigo];
+    }
+
+    /** Tipo de uma declaração: "int", "float", "string" ou "bool". */
+    public static Tipo daLinguagem(String tipoFonte) {
+        return switch (tipoFonte) {
+            case "int"    -> INT64;
+            case "float"  -> FLOAT64;
+            case "string" -> STRING;
+            case "bool"   -> BOOL;
+            default -> throw new IllegalArgumentException("tipo desconhecido: " + tipoFonte);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return il;
+    }
+}
@@ -5,12 +5,21 @@ public class Token
     private int id;
     private String lexeme;
     private int position;
+    private int line;
+    private int column;
 
     public Token(int id, String lexeme, int position)
+    {
+        this(id, lexeme, position, -1, -1);
+    }
+
+    public Token(int id, String lexeme, int position, int line, int column)
     {
         this.id = id;
         this.lexeme = lexeme;
         this.position = position;
+        this.line = line;
+        this.column = column;
     }
 
     public final int getId()
@@ -28,6 +37,18 @@ public class Token
         return position;
     }
 
+    /** Linha do token (a partir de 1), ou -1 se desconhecida. */
+    public final int getLine()
+    {
+        return line;
+    }
+
+    /** Coluna do token (a partir de 1), ou -1 se desconhecida. */
+    public final int getColumn()
+    {
+        return column;
+    }
+
     public String toString()
     {
         return id+" ( "+lexeme+" ) @ "+position;
@@ -0,0 +1,112 @@
+package br.com.trabalho.compilerui.compiler;
+
+import java.util.Arrays;
+
+/**
+ * Sequência de tokens em vetores primitivos: ids, inícios e fins (offsets),
+ * linhas e colunas.
+ * Os vetores crescem conforme a necessidade e são reaproveitados a cada
+ * tokenize(), então tokenizar não aloca nada por token; os lexemas só
+ * viram String quando alguém pede lexeme(i).
+ */
+public final class TokenStream {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Lexico lexico = new Lexico();
+
+    private String source = "";
+    private int[] ids    = new int[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends   = new int[INITIAL_CAPACITY];
+    private int[] lines   = new int[INITIAL_CAPACITY];
+    private int[] columns = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Tokeniza o texto inteiro. Se houver erro léxico, os tokens anteriores
+     * ao erro continuam disponíveis e o erro é propagado.
+     */
+    public void tokenize(String source) throws LexicalError {
+        this.source = source;
+        size = 0;
+        lexico.setInput(source);
+
+        int id;
+        while ((id = lexico.nextTokenId()) != Constants.DOLLAR) {
+            if (size == ids.length) grow();
+            ids[size]    = id;
+            starts[size] = lexico.getTokenStart();
+            ends[size]   = lexico.getTokenEnd();
+            lines[size]   = lexico.getTokenLine();
+            columns[size] = lexico.getTokenColumn();
+            size++;
+        }
+    }
+
+    /**
+     * Carrega os tokens de um IncrementalLexer (que correspondem a "source")
+     * até o primeiro erro léxico, calculando linhas e colunas.
+     *
+     * @return índice do token de erro no IncrementalLexer, ou -1 se não houver
+     */
+    int load(String source, IncrementalLexer tokens) {
+        this.source = source;
+        size = 0;
+
+        int line = 1;
+        int lineStart = 0;
+        int scanned = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            int id = tokens.id(i);
+            if (id == IncrementalLexer.ERROR) return i;
+
+            int start = tokens.start(i);
+            for (; scanned < start; scanned++) {
+                if (source.charAt(scanned) == '\n') {
+                    line++;
+                    lineStart = scanned + 1;
+                }
+            }
+            if (size == ids.length) grow();
+            ids[size]     = id;
+            starts[size]  = start;
+            ends[size]    = tokens.end(i);
+            lines[size]   = line;
+            columns[size] = start - lineStart + 1;
+            size++;
+        }
+        return -1;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids    = Arrays.copyOf(ids, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends   = Arrays.copyOf(ends, capacity);
+        lines   = Arrays.copyOf(lines, capacity);
+        columns = Arrays.copyOf(columns, capacity);
+    }
+
+    public int size() { return size; }
+
+    public int id(int i)    { return ids[i]; }
+    public int start(int i) { return starts[i]; }
+    public int end(int i)   { return ends[i]; }
+    public int line(int i)   { return lines[i]; }
+    public int column(int i) { return columns[i]; }
+
+    /** Materializa o lexema do i-ésimo token. */
+    public String lexeme(int i) {
+        return source.substring(starts[i], ends[i]);
+    }
+
+    public String getSource() { return source; }
+
+    // Acesso direto aos vetores (válidos de 0 até size() - 1)
+    public int[] ids()    { return ids; }
+    public int[] starts() { return starts; }
+    public int[] ends()   { return ends; }
+    public int[] lines()   { return lines; }
+    public int[] columns() { return columns; }
+}
@@ -0,0 +1,99 @@
+package br.com.trabalho.compilerui.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader UTF-8 sobre o arquivo mapeado em memória (FileChannel.map).
+ * Os bytes são decodificados sob demanda direto no buffer de quem lê,
+ * sem carregar o arquivo inteiro no heap. Arquivos grandes são mapeados
+ * em regiões consecutivas de até REGION_SIZE bytes.
+ */
+public class MappedFileReader extends Reader {
+
+    private static final long REGION_SIZE = 64L << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+    private long regionStart;
+    private MappedByteBuffer region;
+    private boolean flushed;
+
+    // Segunda metade de um par surrogate que não coube no último read
+    private int pendingChar = -1;
+
+    public MappedFileReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = channel.size();
+        map(0);
+    }
+
+    private void map(long start) throws IOException {
+        regionStart = start;
+        region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_SIZE, size - start));
+    }
+
+    private boolean isLastRegion() {
+        return regionStart + region.limit() >= size;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (!channel.isOpen()) throw new IOException("Reader fechado");
+        if (len == 0) return 0;
+
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        if (pendingChar >= 0) {
+            out.put((char) pendingChar);
+            pendingChar = -1;
+        }
+
+        while (out.position() == off) {
+            boolean last = isLastRegion();
+            CoderResult result = decoder.decode(region, out, last);
+            if (result.isError()) result.throwException();
+
+            if (out.position() > off) break;
+
+            if (result.isOverflow()) {
+                // só há espaço para 1 char e o próximo é um par surrogate
+                CharBuffer pair = CharBuffer.allocate(2);
+                decoder.decode(region, pair, last);
+                out.put(pair.get(0));
+                pendingChar = pair.get(1);
+                break;
+            }
+
+            if (last) {
+                if (!flushed) {
+                    decoder.flush(out);
+                    flushed = true;
+                }
+                if (out.position() == off) return -1;
+                break;
+            }
+
+            // região consumida (pode sobrar um caractere multibyte partido): remapeia dali
+            map(regionStart + region.position());
+        }
+        return out.position() - off;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
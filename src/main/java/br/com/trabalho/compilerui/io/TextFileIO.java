@@ -2,6 +2,7 @@ package br.com.trabalho.compilerui.io;
 
 
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -13,7 +14,24 @@ public class TextFileIO {
     }
 
 
+    /** Abre o arquivo mapeado em memória, decodificando UTF-8 sob demanda. */
+    public static Reader openMapped(Path path) throws IOException {
+        return new MappedFileReader(path);
+    }
+
+
     public static void write(Path path, String content) throws IOException {
         Files.writeString(path, content, StandardCharsets.UTF_8);
     }
+
+
+    /** Mesmo arquivo, na mesma pasta, com a extensão trocada (ex.: prog.txt -> prog.il). */
+    public static Path replaceExtension(Path path, String newExt) {
+        String fileName = path.getFileName().toString();
+        int idx = fileName.lastIndexOf('.');
+        if (idx > 0) {
+            return path.resolveSibling(fileName.substring(0, idx) + newExt);
+        }
+        return path.resolveSibling(fileName + newExt);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package br.com.trabalho.compilerui.ui;
 
+import br.com.trabalho.compilerui.compiler.CompileResult;
+import br.com.trabalho.compilerui.compiler.CompilerPipeline;
 import br.com.trabalho.compilerui.compiler.ParserRunner;
 import br.com.trabalho.compilerui.io.TextFileIO;
 
@@ -10,6 +12,9 @@ import java.awt.event.ActionEvent;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class AppFrame extends JFrame {
 
@@ -19,6 +24,14 @@ public class AppFrame extends JFrame {
     private final StatusBar statusBar;
 
     private Path currentFile = null;
+    private CompileJob compileJob = null; // compilação em andamento (ou a última)
+
+    // Verificação enquanto se digita: espera "checkDelay" ms sem edições e compila em segundo plano
+    private static final int DEFAULT_CHECK_DELAY_MS = 400;
+    private static final Pattern ERROR_LINE = Pattern.compile("^linha (\\d+):");
+    private final Timer checkTimer = new Timer(DEFAULT_CHECK_DELAY_MS, e -> startCheck());
+    private CheckJob checkJob = null;
+    private boolean checkAsYouType = false;
 
     public AppFrame() {
         super("Interface do Compilador");
@@ -63,6 +76,11 @@ public class AppFrame extends JFrame {
         toolbar.getBtnRecortar().addActionListener(e -> editor.getTextArea().cut());
         toolbar.getBtnCompilar().addActionListener(e -> doCompilar());
         toolbar.getBtnEquipe().addActionListener(e -> doEquipe());
+        toolbar.getChkVerificar().addActionListener(e -> setCheckAsYouType(toolbar.getChkVerificar().isSelected()));
+
+        // Verificação enquanto se digita
+        checkTimer.setRepeats(false);
+        editor.onEdit(this::scheduleCheck);
 
         // Atalhos
         bindKeyStroke("control N", "novo", this::doNovo);
@@ -86,7 +104,7 @@ public class AppFrame extends JFrame {
     // --- Ações ---
 
     private void doNovo() {
-        editor.getTextArea().setText("");
+        editor.clear();
         messages.clear();
         statusBar.clear();
         currentFile = null;
@@ -101,9 +119,7 @@ public class AppFrame extends JFrame {
         if (result == JFileChooser.APPROVE_OPTION) {
             Path file = chooser.getSelectedFile().toPath();
             try {
-                String content = TextFileIO.read(file);
-                editor.getTextArea().setText(content);
-                editor.getTextArea().setCaretPosition(0);
+                editor.open(file);
                 messages.clear();
                 statusBar.updatePath(file.toString());
                 currentFile = file;
@@ -151,8 +167,14 @@ public class AppFrame extends JFrame {
         }
     }
 
-    // Compilar: executa o analisador SINTÁTICO e exibe a saída
+    // Compilar: executa o analisador SINTÁTICO em segundo plano e exibe a saída
     private void doCompilar() {
+        // F7 com uma compilação em andamento cancela essa compilação, sem enfileirar outra
+        if (compileJob != null && !compileJob.isDone()) {
+            compileJob.cancel(true);
+            return;
+        }
+
         messages.clear();
 
         String source = editor.getTextArea().getText();
@@ -167,55 +189,161 @@ public class AppFrame extends JFrame {
             return;
         }
 
-        try {
-            List<String> result = ParserRunner.run(source);
+        statusBar.showProgress(0);
+        compileJob = new CompileJob(source, currentFile);
+        compileJob.execute();
+    }
 
-            // fonte monoespaçada para legibilidade
-            messages.getTextArea().setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+    /**
+     * Compilação fora da EDT: o parse e a gravação do .il rodam numa thread
+     * do SwingWorker e o resultado volta para a área de mensagens em done().
+     * cancel(true) interrompe a thread e o sintático para no próximo ponto
+     * de verificação.
+     */
+    private final class CompileJob extends SwingWorker<List<String>, Void> {
+        private final String source;
+        private final Path file;
+        private Path ilPath;
+
+        CompileJob(String source, Path file) {
+            this.source = source;
+            this.file = file;
+            addPropertyChangeListener(e -> {
+                if ("progress".equals(e.getPropertyName()) && !isDone()) {
+                    statusBar.showProgress((Integer) e.getNewValue());
+                }
+            });
+        }
 
-            // === ÁREA DE MENSAGENS ===
-            // Mostrar APENAS a primeira linha (erro ou sucesso).
-            if (result.isEmpty()) {
-                messages.setText("Erro: compilação não retornou mensagem.");
-            } else {
-                messages.setText(result.get(0));
-            }
-            messages.getTextArea().setCaretPosition(0);
+        @Override
+        protected List<String> doInBackground() throws Exception {
+            int length = Math.max(1, source.length());
 
             // === GERAÇÃO DO ARQUIVO IL ===
-            // Somente se compilou com sucesso.
-            if (!result.isEmpty()
-                    && result.get(0).trim().equalsIgnoreCase("programa compilado com sucesso")) {
+            // Gravado durante a análise, na mesma pasta do .txt; só fica no
+            // lugar do .il anterior se compilou com sucesso.
+            Path il = TextFileIO.replaceExtension(file, ".il");
+            CompileResult result = CompilerPipeline.padrao().compile(source, false,
+                    pos -> setProgress((int) Math.min(99, pos * 100L / length)), il);
+            if (result.succeeded()) {
+                ilPath = il;
+            }
+            return result.getOutput();
+        }
+
+        @Override
+        protected void done() {
+            statusBar.hideProgress();
+            if (isCancelled()) {
+                messages.setText("Compilação cancelada.");
+                return;
+            }
 
-                // Monta o conteúdo IL a partir das demais linhas (result[1..])
-                StringBuilder il = new StringBuilder();
-                for (int i = 1; i < result.size(); i++) {
-                    String line = result.get(i);
+            try {
+                List<String> result = get();
 
-                    // Ignora o marcador "----------- CÓDIGO IL -----------"
-                    if (line.startsWith("-----------")) continue;
+                // fonte monoespaçada para legibilidade
+                messages.getTextArea().setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
 
-                    il.append(line).append('\n');
+                // === ÁREA DE MENSAGENS ===
+                // Mostrar APENAS a primeira linha (erro ou sucesso).
+                if (result.isEmpty()) {
+                    messages.setText("Erro: compilação não retornou mensagem.");
+                } else {
+                    messages.setText(result.get(0));
                 }
+                messages.getTextArea().setCaretPosition(0);
 
-                // Caminho do arquivo .il na mesma pasta do .txt
-                Path ilPath = currentFile.resolveSibling(
-                        replaceExtension(currentFile.getFileName().toString(), ".il")
-                );
+                if (ilPath != null) {
+                    statusBar.updatePath(
+                            file.toString() +
+                                    "  (código IL gerado: " + ilPath.getFileName() + ")"
+                    );
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                messages.setText("Erro durante a compilação: " + cause.getMessage());
+                cause.printStackTrace();
+            }
+        }
+    }
 
-                // Salvar arquivo .il
-                TextFileIO.write(ilPath, il.toString());
+    // --- Verificação enquanto se digita ---
+
+    /** Liga/desliga a verificação em segundo plano a cada pausa na digitação. */
+    public void setCheckAsYouType(boolean enabled) {
+        checkAsYouType = enabled;
+        toolbar.getChkVerificar().setSelected(enabled);
+        if (enabled) {
+            startCheck();
+        } else {
+            checkTimer.stop();
+            cancelCheck();
+            editor.setErrorLine(0);
+        }
+    }
 
-                // Atualizar status bar (opcional)
-                statusBar.updatePath(
-                        currentFile.toString() +
-                                "  (código IL gerado: " + ilPath.getFileName() + ")"
-                );
-            }
+    /** Tempo sem edições (em ms) antes de verificar o texto. */
+    public void setCheckDelay(int millis) {
+        checkTimer.setInitialDelay(millis);
+    }
 
-        } catch (Exception ex) {
-            messages.setText("Erro durante a compilação: " + ex.getMessage());
-            ex.printStackTrace();
+    private void scheduleCheck() {
+        if (!checkAsYouType) return;
+        // a verificação em andamento já está velha: cancela e espera a próxima pausa
+        cancelCheck();
+        checkTimer.restart();
+    }
+
+    private void cancelCheck() {
+        if (checkJob != null) {
+            checkJob.cancel(true);
+            checkJob = null;
+        }
+    }
+
+    private void startCheck() {
+        cancelCheck();
+        // texto e tokens são copiados na thread do SwingWorker, não na EDT
+        checkJob = new CheckJob(editor.documentTokens());
+        checkJob.execute();
+    }
+
+    /** Verifica a partir dos tokens incrementais, sem gerar IL, e mostra o primeiro erro. */
+    private final class CheckJob extends SwingWorker<List<String>, Void> {
+        private final DocumentTokens tokens;
+
+        CheckJob(DocumentTokens tokens) {
+            this.tokens = tokens;
+        }
+
+        @Override
+        protected List<String> doInBackground() {
+            DocumentTokens.Snapshot snapshot = tokens.snapshot();
+            return CompilerPipeline.padrao().compile(snapshot.source, snapshot.tokens);
+        }
+
+        @Override
+        protected void done() {
+            // resultado de uma verificação cancelada ou substituída é descartado
+            if (isCancelled() || checkJob != this) return;
+            checkJob = null;
+
+            try {
+                List<String> result = get();
+                String first = result.isEmpty() ? "" : result.get(0);
+                messages.setText(first);
+
+                Matcher m = ERROR_LINE.matcher(first);
+                editor.setErrorLine(m.find() ? Integer.parseInt(m.group(1)) : 0);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                editor.setErrorLine(0);
+                messages.setText("Erro durante a verificação: " + ex.getCause().getMessage());
+            }
         }
     }
 
@@ -233,14 +361,6 @@ public class AppFrame extends JFrame {
         messages.setText(sb.toString());
     }
 
-    private String replaceExtension(String fileName, String newExt) {
-        int idx = fileName.lastIndexOf('.');
-        if (idx > 0) {
-            return fileName.substring(0, idx) + newExt;
-        }
-        return fileName + newExt;
-    }
-
     public ToolbarPanel getToolbar() { return toolbar; }
     public EditorWithLineNumbers getEditor() { return editor; }
     public MessagesPanel getMessages() { return messages; }
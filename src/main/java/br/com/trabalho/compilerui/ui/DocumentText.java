@@ -0,0 +1,62 @@
+package br.com.trabalho.compilerui.ui;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+/**
+ * Um Document visto como CharSequence. Lê o conteúdo em blocos com um
+ * Segment parcial (que aponta direto para o armazenamento do documento
+ * quando possível), sem copiar o texto inteiro para uma String.
+ * Depois de cada edição é preciso chamar invalidate().
+ */
+final class DocumentText implements CharSequence {
+
+    private final Document doc;
+    private final Segment segment = new Segment();
+    private int segmentStart;
+
+    DocumentText(Document doc) {
+        this.doc = doc;
+        segment.setPartialReturn(true);
+    }
+
+    /** Descarta o bloco em cache (o documento mudou). */
+    void invalidate() {
+        segment.count = 0;
+    }
+
+    @Override
+    public int length() {
+        return doc.getLength();
+    }
+
+    @Override
+    public char charAt(int index) {
+        int rel = index - segmentStart;
+        if (rel < 0 || rel >= segment.count) {
+            try {
+                doc.getText(index, doc.getLength() - index, segment);
+            } catch (BadLocationException e) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            segmentStart = index;
+            rel = 0;
+        }
+        return segment.array[segment.offset + rel];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        try {
+            return doc.getText(start, end - start);
+        } catch (BadLocationException e) {
+            throw new IndexOutOfBoundsException(start);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length()).toString();
+    }
+}
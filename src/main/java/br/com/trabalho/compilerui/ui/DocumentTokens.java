@@ -0,0 +1,91 @@
+package br.com.trabalho.compilerui.ui;
+
+import br.com.trabalho.compilerui.compiler.IncrementalLexer;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+
+/**
+ * Mantém um IncrementalLexer em dia com o documento de um componente de
+ * texto: cada inserção/remoção relê só os tokens afetados. Se o componente
+ * trocar de documento, a lista é refeita para o novo. snapshot() copia
+ * texto e tokens de um mesmo instante, inclusive fora da EDT.
+ */
+final class DocumentTokens implements DocumentListener, PropertyChangeListener {
+
+    private final IncrementalLexer lexer = new IncrementalLexer();
+    private Document doc;
+    private DocumentText text;
+
+    DocumentTokens(JTextComponent component) {
+        attach(component.getDocument());
+        component.addPropertyChangeListener("document", this);
+    }
+
+    IncrementalLexer getLexer() { return lexer; }
+
+    /** Texto e tokens de um mesmo instante do documento. */
+    static final class Snapshot {
+        final String source;
+        final IncrementalLexer tokens;
+
+        Snapshot(String source, IncrementalLexer tokens) {
+            this.source = source;
+            this.tokens = tokens;
+        }
+    }
+
+    /**
+     * Copia texto e tokens sob a trava de leitura do documento. As edições,
+     * e com elas a atualização dos tokens nos listeners, acontecem sob a
+     * trava de escrita, então a cópia pode ser feita fora da EDT.
+     */
+    Snapshot snapshot() {
+        Snapshot[] copy = new Snapshot[1];
+        while (copy[0] == null) {
+            Document current;
+            synchronized (this) {
+                current = doc;
+            }
+            current.render(() -> {
+                synchronized (this) {
+                    // se o componente trocou de documento no meio, tenta de novo
+                    if (current == doc) copy[0] = new Snapshot(text.toString(), lexer.copy());
+                }
+            });
+        }
+        return copy[0];
+    }
+
+    private synchronized void attach(Document newDoc) {
+        if (doc != null) doc.removeDocumentListener(this);
+        doc = newDoc;
+        text = new DocumentText(newDoc);
+        doc.addDocumentListener(this);
+        lexer.reset(text);
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent e) {
+        text.invalidate();
+        lexer.edit(text, e.getOffset(), 0, e.getLength());
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e) {
+        text.invalidate();
+        lexer.edit(text, e.getOffset(), e.getLength(), 0);
+    }
+
+    // mudanças de atributo não alteram o texto
+    @Override public void changedUpdate(DocumentEvent e) { }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        attach((Document) evt.getNewValue());
+    }
+}
@@ -1,23 +1,31 @@
 package br.com.trabalho.compilerui.ui;
 
+import br.com.trabalho.compilerui.compiler.IncrementalLexer;
+
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
-import javax.swing.event.CaretEvent;
-import javax.swing.event.CaretListener;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
 import java.awt.*;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.IOException;
+import java.nio.file.Path;
 
 public class EditorWithLineNumbers {
 
     private final JTextArea textArea;
     private final JScrollPane scrollPane;
+    private final LineNumberView lineNumbers;
+    private DocumentTokens tokens; // criado no primeiro getTokens()
 
     public EditorWithLineNumbers() {
-        // Não “colar” na largura do viewport (preserva barra horizontal)
-        textArea = new JTextArea() {
+        // Não “colar” na largura do viewport (preserva barra horizontal);
+        // o documento é uma piece table, desenhada pela PieceTableView
+        textArea = new JTextArea(new PieceTableDocument()) {
             @Override public boolean getScrollableTracksViewportWidth() { return false; }
+            @Override public void updateUI() { setUI(new PieceTableView.UI()); }
         };
         textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 14));
         textArea.setLineWrap(false);
@@ -36,29 +44,107 @@ public class EditorWithLineNumbers {
         scrollPane.getViewport().setBackground(Color.WHITE);
 
         // Gutter (números de linha)
-        LineNumberView lineNumbers = new LineNumberView(textArea);
+        lineNumbers = new LineNumberView(textArea);
         scrollPane.setRowHeaderView(lineNumbers);
         if (scrollPane.getRowHeader() != null) {
             scrollPane.getRowHeader().setOpaque(true);
             scrollPane.getRowHeader().setBackground(LineNumberView.BG_COLOR);
         }
 
-        // Repaint do gutter ao rolar
-        scrollPane.getViewport().addChangeListener(e -> lineNumbers.repaint());
+        // a rolagem do gutter fica por conta do viewport do row header, que
+        // acompanha o viewport principal e repinta só o que aparece
     }
 
     public JComponent getContainer() { return scrollPane; }
     public JTextArea getTextArea() { return textArea; }
 
+    /**
+     * Abre o arquivo num documento novo. O texto não passa por uma String:
+     * um arquivo de 100 MB abre em fração de segundo.
+     */
+    public void open(Path file) throws IOException {
+        setDocument(PieceTableDocument.open(file));
+    }
+
+    /** Troca o texto por um documento vazio (liberando o do arquivo aberto). */
+    public void clear() {
+        setDocument(new PieceTableDocument());
+    }
+
+    private void setDocument(PieceTableDocument doc) {
+        doc.putProperty(PlainDocument.tabSizeAttribute, textArea.getTabSize());
+        textArea.setDocument(doc);
+        textArea.setCaretPosition(0);
+    }
+
+    /** Marca a linha (a partir de 1) com erro no gutter; 0 remove a marca. */
+    public void setErrorLine(int line) { lineNumbers.setErrorLine(line); }
+
+    /**
+     * Chama "action" a cada inserção ou remoção no texto, acompanhando
+     * também as trocas de documento do editor.
+     */
+    public void onEdit(Runnable action) {
+        DocumentListener listener = new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { action.run(); }
+            @Override public void removeUpdate(DocumentEvent e) { action.run(); }
+            @Override public void changedUpdate(DocumentEvent e) { }
+        };
+        textArea.getDocument().addDocumentListener(listener);
+        textArea.addPropertyChangeListener("document", evt -> {
+            if (evt.getOldValue() != null) {
+                ((Document) evt.getOldValue()).removeDocumentListener(listener);
+            }
+            ((Document) evt.getNewValue()).addDocumentListener(listener);
+            action.run();
+        });
+    }
+
+    /**
+     * Tokens do documento, atualizados a cada edição só no trecho afetado.
+     * A primeira chamada tokeniza o documento inteiro e passa a acompanhá-lo.
+     */
+    public IncrementalLexer getTokens() {
+        return documentTokens().getLexer();
+    }
+
+    /** Acompanhamento dos tokens, para tirar cópias fora da EDT (DocumentTokens.snapshot). */
+    DocumentTokens documentTokens() {
+        if (tokens == null) tokens = new DocumentTokens(textArea);
+        return tokens;
+    }
+
     // -------- Gutter para números de linha --------
+
+    /*
+     * Sem quebra de linha, a linha i do editor ocupa exatamente a faixa
+     * [topo + i * altura, topo + (i + 1) * altura); o gutter usa essa conta
+     * em vez de consultar as views do JTextArea. Edições dentro de uma
+     * linha não mudam nenhum número, então não pintam nada; quando a
+     * contagem de linhas muda, só as linhas do fim são repintadas e o
+     * layout só é refeito se mudar o número de dígitos (a largura).
+     */
     static class LineNumberView extends JComponent
-            implements DocumentListener, CaretListener, PropertyChangeListener {
+            implements DocumentListener, PropertyChangeListener {
 
         static final Color BG_COLOR = new Color(245, 245, 245);
         static final Color SEP_COLOR = new Color(200, 200, 200);
+        static final Color ERROR_COLOR = new Color(220, 50, 50);
         static final int MARGIN = 8;
 
         private final JTextArea area;
+        private Document doc;
+        private int errorLine; // linha com erro (1-based), 0 = nenhuma
+
+        // métricas em cache, recalculadas quando muda a fonte
+        private int lineHeight;
+        private int topInset;
+        private int bottomInset;
+        private int digitWidth;
+        private int descent;
+
+        private int lineCount;
+        private int digits;
 
         LineNumberView(JTextArea area) {
             this.area = area;
@@ -66,25 +152,82 @@ public class EditorWithLineNumbers {
             setOpaque(true);
             setBackground(BG_COLOR);
 
-            area.getDocument().addDocumentListener(this);
-            area.addCaretListener(this);
+            doc = area.getDocument();
+            doc.addDocumentListener(this);
             area.addPropertyChangeListener("document", this);
+            area.addPropertyChangeListener("font", this);
+            addPropertyChangeListener("font", this);
 
-            addHierarchyListener(e -> {
-                Component p = getParent();
-                if (p instanceof JViewport vp) {
-                    vp.addChangeListener(ev -> repaint());
-                }
-            });
+            updateMetrics();
+            lineCount = countLines();
+            digits = digitsOf(lineCount);
+        }
+
+        void setErrorLine(int line) {
+            if (line != errorLine) {
+                int old = errorLine;
+                errorLine = line;
+                repaintLines(old - 1, old);
+                repaintLines(line - 1, line);
+            }
+        }
+
+        private void updateMetrics() {
+            lineHeight = Math.max(1, area.getFontMetrics(area.getFont()).getHeight());
+            Insets insets = area.getInsets();
+            topInset = insets.top;
+            bottomInset = insets.bottom;
+            FontMetrics fm = getFontMetrics(getFont());
+            digitWidth = fm.charWidth('0');
+            descent = fm.getDescent();
+        }
+
+        private int countLines() {
+            return Math.max(1, doc.getDefaultRootElement().getElementCount());
+        }
+
+        private static int digitsOf(int n) {
+            int d = 1;
+            while (n >= 10) {
+                n /= 10;
+                d++;
+            }
+            return d;
+        }
+
+        private int preferredHeight() {
+            return Math.max(area.getHeight(), topInset + lineCount * lineHeight + bottomInset);
         }
 
         @Override
         public Dimension getPreferredSize() {
-            FontMetrics fm = getFontMetrics(getFont());
-            int lines = Math.max(1, area.getLineCount());
-            int digits = String.valueOf(lines).length();
-            int width = MARGIN * 2 + fm.charWidth('0') * digits;
-            return new Dimension(Math.max(40, width), area.getHeight());
+            int width = MARGIN * 2 + digitWidth * digits;
+            return new Dimension(Math.max(40, width), preferredHeight());
+        }
+
+        /** Repinta as linhas [from, to) (0-based) do gutter. */
+        private void repaintLines(int from, int to) {
+            if (to <= from || to <= 0) return;
+            from = Math.max(0, from);
+            repaint(0, topInset + from * lineHeight, getWidth(), (to - from) * lineHeight);
+        }
+
+        private void linesChanged() {
+            int newCount = countLines();
+            if (newCount == lineCount) return;
+
+            int old = lineCount;
+            lineCount = newCount;
+            int newDigits = digitsOf(newCount);
+            if (newDigits != digits) {
+                digits = newDigits;
+                revalidate();
+                repaint();
+            } else {
+                // mesma largura: basta acompanhar a altura, sem refazer o layout do scroll
+                setSize(getWidth(), preferredHeight());
+                repaintLines(Math.min(old, newCount), Math.max(old, newCount));
+            }
         }
 
         @Override
@@ -101,45 +244,52 @@ public class EditorWithLineNumbers {
             g2.drawLine(getWidth() - 1, clip.y, getWidth() - 1, clip.y + clip.height);
 
             g2.setFont(getFont());
-            FontMetrics fm = g2.getFontMetrics();
-            int descent = fm.getDescent();
-
-            // faixa visível do editor
-            Rectangle vr = area.getVisibleRect();
-            int startOffset = area.viewToModel2D(new Point(0, vr.y));
-            int endOffset   = area.viewToModel2D(new Point(0, vr.y + vr.height));
 
-            try {
-                int startLine = area.getLineOfOffset(startOffset);
-                int endLine   = area.getLineOfOffset(endOffset);
+            // faixa de linhas dentro do clip, por conta
+            int startLine = Math.max(0, (clip.y - topInset) / lineHeight);
+            int endLine   = Math.min(lineCount - 1, (clip.y + clip.height - topInset) / lineHeight);
 
-                for (int line = startLine; line <= endLine; line++) {
-                    int lineStart = area.getLineStartOffset(Math.min(line, area.getLineCount() - 1));
-                    Rectangle r = area.modelToView2D(lineStart).getBounds();
+            for (int line = startLine; line <= endLine; line++) {
+                int top = topInset + line * lineHeight;
 
-                    String num = String.valueOf(line + 1);
-                    int x = getWidth() - MARGIN - fm.stringWidth(num);
-                    int y = r.y + r.height - descent;
+                String num = String.valueOf(line + 1);
+                int x = getWidth() - MARGIN - digitWidth * num.length();
+                int y = top + lineHeight - descent;
 
-                    g2.setColor(Color.DARK_GRAY);
+                if (line + 1 == errorLine) {
+                    // marcador de erro: bolinha à esquerda e número em vermelho
+                    int d = Math.max(4, lineHeight / 2);
+                    g2.setColor(ERROR_COLOR);
+                    g2.fillOval(2, top + (lineHeight - d) / 2, d, d);
                     g2.drawString(num, x, y);
+                    continue;
                 }
-            } catch (Exception ignored) { }
+
+                g2.setColor(Color.DARK_GRAY);
+                g2.drawString(num, x, y);
+            }
 
             g2.dispose();
         }
 
-        private void refresh() { revalidate(); repaint(); }
-
         // DocumentListener
-        @Override public void insertUpdate(DocumentEvent e) { refresh(); }
-        @Override public void removeUpdate(DocumentEvent e) { refresh(); }
-        @Override public void changedUpdate(DocumentEvent e) { refresh(); }
-
-        // CaretListener
-        @Override public void caretUpdate(CaretEvent e) { repaint(); }
+        @Override public void insertUpdate(DocumentEvent e) { linesChanged(); }
+        @Override public void removeUpdate(DocumentEvent e) { linesChanged(); }
+        @Override public void changedUpdate(DocumentEvent e) { }
 
-        // PropertyChangeListener
-        @Override public void propertyChange(PropertyChangeEvent evt) { refresh(); }
+        // PropertyChangeListener: troca de documento ou de fonte
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            if ("document".equals(evt.getPropertyName())) {
+                doc.removeDocumentListener(this);
+                doc = area.getDocument();
+                doc.addDocumentListener(this);
+            }
+            updateMetrics();
+            lineCount = countLines();
+            digits = digitsOf(lineCount);
+            revalidate();
+            repaint();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,263 @@
+package br.com.trabalho.compilerui.ui;
+
+import java.util.Arrays;
+
+/**
+ * Início de cada linha de um texto que muda aos poucos (a linha 0 começa
+ * em 0; as demais, logo depois de cada '\n').
+ *
+ * Dois truques deixam as edições baratas mesmo com milhões de linhas:
+ * os inícios ficam num vetor com buraco (inserir e remover linhas perto da
+ * edição anterior não move o resto), e o deslocamento das linhas seguintes
+ * a uma edição fica pendente: as linhas depois de stepLine ainda não
+ * receberam stepLength, que só é aplicado quando a próxima edição cai em
+ * outro lugar, e só no trecho entre uma e outra.
+ */
+final class LineTable {
+
+    private int[] starts = new int[16];
+    private int gapStart;
+    private int gapEnd = starts.length;
+    private int count;
+    private int length;
+
+    private int stepLine;
+    private int stepLength;
+
+    // linha mais longa (em caracteres), recalculada sob demanda
+    private int longest;
+    private boolean longestValid = true;
+
+    // linhas trocadas pela última edição: a partir de changeLine saíram as
+    // que começavam em removedStarts (a última terminava em removedEnd) e
+    // entraram changeAdded; changeAdded == 0 se nenhuma linha mudou
+    private int changeLine;
+    private int changeAdded;
+    private int[] removedStarts = new int[0];
+    private int removedEnd;
+
+    /** Uma linha só, com "length" caracteres e nenhuma quebra. */
+    LineTable(int length) {
+        insertRaw(0, 0);
+        count = 1;
+        this.length = length;
+    }
+
+    int count() { return count; }
+
+    int length() { return length; }
+
+    int start(int line) {
+        int v = raw(line);
+        return line > stepLine ? v + stepLength : v;
+    }
+
+    int end(int line) {
+        return line + 1 < count ? start(line + 1) : length;
+    }
+
+    /** Linha que contém "offset" (a última que começa nele ou antes). */
+    int lineOf(int offset) {
+        int lo = 0, hi = count - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (start(mid) <= offset) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    /**
+     * Texto inserido em "offset": "n" caracteres com quebras de linha nas
+     * posições breaks[0..breakCount) (relativas a offset).
+     */
+    void insert(int offset, int n, int[] breaks, int breakCount) {
+        int line = lineOf(offset);
+        int oldEnd = end(line);
+        shift(line, n);
+        length += n;
+
+        if (breakCount > 0) {
+            insertLines(line + 1, offset + 1, breaks, breakCount);
+            recordChange(line, 1, breakCount + 1, new int[] { start(line) }, oldEnd);
+        } else {
+            changeAdded = 0;
+        }
+
+        if (longestValid) {
+            if (longest > line) {
+                longest += breakCount;
+            } else if (longest == line && breakCount > 0) {
+                longestValid = false; // a linha mais longa foi partida
+                return;
+            }
+            for (int i = line; i <= line + breakCount; i++) {
+                if (lengthOf(i) > lengthOf(longest)) longest = i;
+            }
+        }
+    }
+
+    /** Remoção de [offset, offset + n). */
+    void remove(int offset, int n) {
+        int line = lineOf(offset);
+        int last = lineOf(offset + n);
+        int removed = last - line;
+
+        if (removed > 0) {
+            int[] old = new int[removed + 1];
+            for (int i = 0; i <= removed; i++) old[i] = start(line + i);
+            int oldEnd = end(last);
+            deleteLines(line + 1, removed);
+            recordChange(line, removed + 1, 1, old, oldEnd);
+        } else {
+            changeAdded = 0;
+        }
+        shift(line, -n);
+        length -= n;
+
+        if (longestValid) {
+            if (longest > last) {
+                longest -= removed;
+            } else if (longest >= line) {
+                longestValid = false; // a linha mais longa encolheu ou sumiu
+                return;
+            }
+            if (lengthOf(line) > lengthOf(longest)) longest = line;
+        }
+    }
+
+    private void recordChange(int line, int removed, int added, int[] oldStarts, int oldEnd) {
+        changeLine = line;
+        changeAdded = added;
+        removedStarts = oldStarts;
+        removedEnd = oldEnd;
+    }
+
+    /** Se a última edição trocou linhas (senão só mudou o texto de uma delas). */
+    boolean linesChanged() { return changeAdded > 0; }
+
+    int changeLine() { return changeLine; }
+    int changeAdded() { return changeAdded; }
+    int[] removedStarts() { return removedStarts; }
+    int removedEnd() { return removedEnd; }
+
+    /** Linha com mais caracteres. */
+    int longest() {
+        if (!longestValid) {
+            int best = 0, bestLength = -1;
+            for (int i = 0; i < count; i++) {
+                int len = lengthOf(i);
+                if (len > bestLength) {
+                    bestLength = len;
+                    best = i;
+                }
+            }
+            longest = best;
+            longestValid = true;
+        }
+        return longest;
+    }
+
+    private int lengthOf(int line) {
+        return end(line) - start(line);
+    }
+
+    // -------- deslocamento pendente --------
+
+    /** As linhas depois de "line" andam "delta" caracteres. */
+    private void shift(int line, int delta) {
+        if (delta == 0) return;
+        if (stepLength != 0) {
+            if (line >= stepLine) {
+                applyStep(line);
+                stepLength += delta;
+            } else if (line >= stepLine - count / 10) {
+                // logo antes da edição anterior: recua o passo em vez de aplicá-lo todo
+                addDelta(line + 1, stepLine + 1, -stepLength);
+                stepLine = line;
+                stepLength += delta;
+            } else {
+                applyStep(count - 1);
+                stepLine = line;
+                stepLength = delta;
+            }
+        } else {
+            stepLine = line;
+            stepLength = delta;
+        }
+        if (stepLine >= count - 1) {
+            applyStep(count - 1);
+        }
+    }
+
+    /** Aplica o deslocamento pendente às linhas até "line". */
+    private void applyStep(int line) {
+        if (stepLength != 0) addDelta(stepLine + 1, line + 1, stepLength);
+        stepLine = line;
+        if (stepLine >= count - 1) {
+            stepLine = count - 1;
+            stepLength = 0;
+        }
+    }
+
+    private void addDelta(int from, int to, int delta) {
+        for (int i = from; i < to; i++) {
+            int p = i < gapStart ? i : i + gapEnd - gapStart;
+            starts[p] += delta;
+        }
+    }
+
+    // -------- vetor com buraco --------
+
+    private int raw(int i) {
+        return starts[i < gapStart ? i : i + gapEnd - gapStart];
+    }
+
+    /** Novas linhas em "at": começam em base + breaks[k] (posições já no texto novo). */
+    private void insertLines(int at, int base, int[] breaks, int n) {
+        moveGap(at);
+        if (gapEnd - gapStart < n) grow(n);
+        // linhas depois do passo guardam o valor sem o deslocamento pendente
+        int bias = at > stepLine ? stepLength : 0;
+        for (int k = 0; k < n; k++) {
+            starts[gapStart++] = base + breaks[k] - bias;
+        }
+        count += n;
+        if (stepLine >= at) stepLine += n;
+    }
+
+    private void insertRaw(int at, int value) {
+        moveGap(at);
+        if (gapStart == gapEnd) grow(1);
+        starts[gapStart++] = value;
+    }
+
+    private void deleteLines(int from, int n) {
+        moveGap(from);
+        gapEnd += n;
+        count -= n;
+        if (stepLine >= from + n - 1) stepLine -= n;
+        else if (stepLine >= from) stepLine = from - 1;
+    }
+
+    private void moveGap(int at) {
+        int gap = gapEnd - gapStart;
+        if (at < gapStart) {
+            System.arraycopy(starts, at, starts, at + gap, gapStart - at);
+        } else if (at > gapStart) {
+            System.arraycopy(starts, gapEnd, starts, gapStart, at - gapStart);
+        }
+        gapStart = at;
+        gapEnd = at + gap;
+    }
+
+    private void grow(int needed) {
+        int used = starts.length - (gapEnd - gapStart);
+        int capacity = Math.max(starts.length * 2, used + needed + 16);
+        int tail = starts.length - gapEnd;
+        int[] bigger = Arrays.copyOf(starts, capacity);
+        System.arraycopy(starts, gapEnd, bigger, capacity - tail, tail);
+        starts = bigger;
+        gapEnd = capacity - tail;
+    }
+}
@@ -0,0 +1,125 @@
+package br.com.trabalho.compilerui.ui;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Latência por tecla do editor num arquivo grande, sem precisar de tela
+ * (roda com -Djava.awt.headless=true). Um RepaintManager de registro
+ * guarda os pedidos de revalidate/repaint e, depois de cada "tecla"
+ * (um caractere inserido no meio do documento; a cada 20, um Enter), o
+ * benchmark faz o que o RepaintManager faria: refaz o layout se algo foi
+ * invalidado e pinta só a união das regiões sujas numa imagem fora da tela.
+ * Uso: MainEditorBenchmark [linhas] [teclas]
+ */
+public class MainEditorBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int linhas = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int teclas = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        SwingUtilities.invokeAndWait(() -> run(linhas, teclas));
+    }
+
+    private static void run(int linhas, int teclas) {
+        StringBuilder sb = new StringBuilder(linhas * 16);
+        for (int i = 0; i < linhas; i++) {
+            sb.append("  a = b + ").append(i % 1000).append(";\n");
+        }
+
+        RecordingRepaintManager rm = new RecordingRepaintManager();
+        RepaintManager.setCurrentManager(rm);
+
+        EditorWithLineNumbers editor = new EditorWithLineNumbers();
+        JScrollPane scroll = (JScrollPane) editor.getContainer();
+        JTextArea area = editor.getTextArea();
+        area.setText(sb.toString());
+        scroll.setSize(1200, 800);
+        layoutTree(scroll);
+
+        // posiciona a vista e o cursor no meio do arquivo
+        Document doc = area.getDocument();
+        area.setCaretPosition(doc.getDefaultRootElement().getElement(linhas / 2).getStartOffset());
+        int alturaLinha = area.getFontMetrics(area.getFont()).getHeight();
+        scroll.getViewport().setViewPosition(new Point(0, linhas / 2 * alturaLinha - 400));
+        layoutTree(scroll);
+
+        BufferedImage img = new BufferedImage(1200, 800, BufferedImage.TYPE_INT_RGB);
+        long[] tempos = new long[teclas];
+        long layouts = 0;
+        long regioes = 0;
+        for (int i = 0; i < teclas + 200; i++) {
+            rm.reset();
+            long inicio = System.nanoTime();
+            try {
+                doc.insertString(area.getCaretPosition(), i % 20 == 19 ? "\n" : "x", null);
+            } catch (BadLocationException e) {
+                throw new IllegalStateException(e);
+            }
+
+            if (rm.invalid) {
+                layoutTree(scroll);
+            }
+            if (rm.dirty != null) {
+                Graphics2D g = img.createGraphics();
+                g.setClip(rm.dirty.intersection(new Rectangle(0, 0, 1200, 800)));
+                scroll.paint(g);
+                g.dispose();
+            }
+
+            // as 200 primeiras são aquecimento
+            if (i >= 200) {
+                tempos[i - 200] = System.nanoTime() - inicio;
+                if (rm.invalid) layouts++;
+                regioes += rm.requests;
+            }
+        }
+
+        Arrays.sort(tempos);
+        System.out.printf("%,d linhas, %,d teclas: mediana %.1f us, p99 %.1f us, máx %.1f us%n",
+                linhas, teclas, tempos[teclas / 2] / 1e3,
+                tempos[teclas * 99 / 100] / 1e3, tempos[teclas - 1] / 1e3);
+        System.out.printf("layouts refeitos: %,d; pedidos de repaint por tecla: %.1f%n",
+                layouts, (double) regioes / teclas);
+    }
+
+    /** Sem peer não há validate(): aplica os gerenciadores de layout de toda a árvore. */
+    static void layoutTree(Component c) {
+        if (c instanceof Container ct) {
+            ct.doLayout();
+            for (Component child : ct.getComponents()) {
+                layoutTree(child);
+            }
+        }
+    }
+
+    /** Registra revalidate/repaint (em coordenadas do scroll) em vez de agendá-los. */
+    private static final class RecordingRepaintManager extends RepaintManager {
+        boolean invalid;
+        Rectangle dirty;
+        int requests;
+
+        void reset() {
+            invalid = false;
+            dirty = null;
+            requests = 0;
+        }
+
+        @Override
+        public void addInvalidComponent(JComponent c) {
+            invalid = true;
+        }
+
+        @Override
+        public void addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+            requests++;
+            Component root = c;
+            while (root.getParent() != null) root = root.getParent();
+            Rectangle r = SwingUtilities.convertRectangle(c, new Rectangle(x, y, w, h), root);
+            dirty = dirty == null ? r : dirty.union(r);
+        }
+    }
+}
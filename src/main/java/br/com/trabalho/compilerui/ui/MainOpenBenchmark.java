@@ -0,0 +1,95 @@
+package br.com.trabalho.compilerui.ui;
+
+import br.com.trabalho.compilerui.io.TextFileIO;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tempo para abrir um programa grande no editor, até a primeira tela
+ * pintada (roda com -Djava.awt.headless=true): EditorWithLineNumbers.open,
+ * com o PieceTableDocument, e, com "--settext", o caminho antigo
+ * (ler o arquivo numa String e fazer setText num JTextArea comum).
+ * Uso: MainOpenBenchmark [megabytes] [--settext]
+ */
+public class MainOpenBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        boolean setText = args.length > 1 && args[1].equals("--settext");
+
+        Path file = Files.createTempFile("programa", ".txt");
+        try {
+            long bytes = writeProgram(file, megabytes * 1_000_000L);
+            System.out.printf("arquivo: %,d bytes%n", bytes);
+
+            for (int i = 0; i < 3; i++) {
+                SwingUtilities.invokeAndWait(() -> time("open (piece table)", () -> {
+                    EditorWithLineNumbers editor = new EditorWithLineNumbers();
+                    editor.open(file);
+                    return editor;
+                }));
+            }
+            if (setText) {
+                SwingUtilities.invokeAndWait(() -> time("setText (JTextArea)", () -> {
+                    EditorWithLineNumbers editor = new EditorWithLineNumbers();
+                    JTextArea area = new JTextArea();
+                    area.setFont(editor.getTextArea().getFont());
+                    area.setText(TextFileIO.read(file));
+                    return new JScrollPane(area);
+                }));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private interface Opener {
+        Object open() throws IOException;
+    }
+
+    private static void time(String label, Opener opener) {
+        long inicio = System.nanoTime();
+        Object opened;
+        try {
+            opened = opener.open();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        long aberto = System.nanoTime();
+
+        JComponent view = opened instanceof EditorWithLineNumbers e ? e.getContainer() : (JComponent) opened;
+        view.setSize(1200, 800);
+        MainEditorBenchmark.layoutTree(view);
+        BufferedImage img = new BufferedImage(1200, 800, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setClip(0, 0, 1200, 800);
+        view.paint(g);
+        g.dispose();
+        long pintado = System.nanoTime();
+
+        System.out.printf("%-20s documento %6.0f ms, primeira tela %6.0f ms%n",
+                label, (aberto - inicio) / 1e6, (pintado - inicio) / 1e6);
+    }
+
+    /** Programa válido com pelo menos "size" bytes, escrito direto no arquivo. */
+    private static long writeProgram(Path file, long size) throws IOException {
+        long written = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("begin\n  int a, b, c;\n");
+            for (int i = 0; written < size; i++) {
+                String line = "  a = b + " + (i % 1000) + " * (c - 3);\n";
+                out.write(line);
+                written += line.length();
+            }
+            out.write("end\n");
+        }
+        return Files.size(file);
+    }
+}
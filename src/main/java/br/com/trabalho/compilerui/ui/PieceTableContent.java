@@ -0,0 +1,573 @@
+package br.com.trabalho.compilerui.ui;
+
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Conteúdo de documento em piece table. O texto original (o arquivo
+ * aberto) nunca é copiado nem alterado; o que se digita vai para o fim de
+ * um buffer de acréscimos, e o texto atual é a sequência de pedaços
+ * (buffer, início, tamanho) nos vetores piece*. Um arquivo só ASCII fica como
+ * bytes, um por caractere. As linhas são acompanhadas numa LineTable a
+ * cada inserção/remoção, inclusive as feitas por undo/redo.
+ *
+ * As Positions seguem o esquema do GapContent, com um buraco virtual: uma
+ * marca guarda o offset se estiver antes do buraco e offset + gapLength se
+ * estiver depois, então uma edição só mexe nas marcas entre o buraco e o
+ * ponto editado. Como no GapContent, as marcas são referências fracas e as
+ * que ninguém usa mais são descartadas de tempos em tempos, e o undo de uma
+ * remoção (ou o redo de uma inserção) devolve cada marca do trecho ao seu
+ * lugar, em vez de deixá-las todas na ponta do texto reinserido.
+ */
+final class PieceTableContent implements AbstractDocument.Content {
+
+    private static final byte ORIGINAL = 0;
+    private static final byte ADDED = 1;
+
+    /** Maior bloco convertido de bytes para chars num getChars parcial. */
+    private static final int CHUNK = 16 * 1024;
+
+    private static final int INITIAL_GAP = 1 << 28;
+    private static final int MAX_GAP = 1 << 29;
+
+    // texto original: bytes (arquivo ASCII) ou chars
+    private byte[] originalBytes;
+    private char[] originalChars;
+
+    // só cresce no fim, então um Segment que aponte para cá continua válido
+    private char[] added = new char[64];
+    private int addedLength;
+
+    private byte[] pieceBuffer = new byte[16];
+    private int[] pieceOffset = new int[16];
+    private int[] pieceLength = new int[16];
+    private int[] pieceEnd = new int[16]; // offset (no texto) logo após o pedaço
+    private int pieceCount;
+
+    private final LineTable lines;
+    private int[] breaks = new int[16];
+
+    private Mark[] marks = new Mark[16];
+    private int markCount;
+    private int gapStart;
+    private int gapLength = INITIAL_GAP;
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+    private int unusedMarks;
+
+    /** Conteúdo vazio: só o '\n' final que todo documento tem. */
+    PieceTableContent() {
+        added[addedLength++] = '\n';
+        addPiece(0, ADDED, 0, 1, 1);
+        lines = new LineTable(1);
+    }
+
+    LineTable lines() { return lines; }
+
+    /** Carrega o arquivo ASCII como texto original (documento ainda vazio). */
+    void load(byte[] ascii) {
+        checkEmpty();
+        originalBytes = ascii;
+        int count = 0;
+        for (int i = 0; i < ascii.length; i++) {
+            if (ascii[i] == '\n') count = addBreak(count, i);
+        }
+        loadOriginal(ascii.length, count);
+    }
+
+    /** Carrega chars[0..length) como texto original (documento ainda vazio). */
+    void load(char[] chars, int length) {
+        checkEmpty();
+        originalChars = chars;
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (chars[i] == '\n') count = addBreak(count, i);
+        }
+        loadOriginal(length, count);
+    }
+
+    private void checkEmpty() {
+        if (length() != 1 || originalBytes != null || originalChars != null) {
+            throw new IllegalStateException("conteúdo já carregado");
+        }
+    }
+
+    private void loadOriginal(int length, int breakCount) {
+        if (length == 0) return;
+        insertPiece(0, ORIGINAL, 0, length);
+        insertMarks(0, length);
+        lines.insert(0, length, breaks, breakCount);
+        breaks = new int[16]; // não segura uma posição por linha do arquivo
+    }
+
+    private int addBreak(int count, int position) {
+        if (count == breaks.length) breaks = Arrays.copyOf(breaks, count * 2);
+        breaks[count] = position;
+        return count + 1;
+    }
+
+    // -------- AbstractDocument.Content --------
+
+    @Override
+    public int length() {
+        return pieceEnd[pieceCount - 1];
+    }
+
+    @Override
+    public UndoableEdit insertString(int where, String str) throws BadLocationException {
+        if (where > length() || where < 0) {
+            throw new BadLocationException("Invalid insert", length());
+        }
+        int n = str.length();
+        if (n == 0) return null;
+        int offset = append(str);
+        insertPiece(where, ADDED, offset, n);
+        insertMarks(where, n);
+
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (added[offset + i] == '\n') count = addBreak(count, i);
+        }
+        lines.insert(where, n, breaks, count);
+        return new InsertUndo(where, n);
+    }
+
+    @Override
+    public UndoableEdit remove(int where, int nitems) throws BadLocationException {
+        if (where < 0 || nitems < 0 || where + nitems >= length()) {
+            throw new BadLocationException("Invalid remove", length() + 1);
+        }
+        String removed = getString(where, nitems);
+        UndoMarks undoMarks = UndoMarks.record(this, where, nitems);
+        int first = splitAt(where);
+        int last = splitAt(where + nitems);
+        deletePieces(first, last - first);
+        addToEnds(first, -nitems);
+        removeMarks(where, nitems);
+        lines.remove(where, nitems);
+        return new RemoveUndo(where, removed, undoMarks);
+    }
+
+    @Override
+    public String getString(int where, int len) throws BadLocationException {
+        checkRange(where, len);
+        char[] chars = new char[len];
+        copy(where, len, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Sem partial return, o Segment aponta direto para o buffer quando o
+     * trecho cabe num pedaço de chars e é uma cópia nos outros casos. Com
+     * partial return devolve só o que está no primeiro pedaço (ou, se ele
+     * for de bytes, no máximo CHUNK caracteres convertidos).
+     */
+    @Override
+    public void getChars(int where, int len, Segment txt) throws BadLocationException {
+        checkRange(where, len);
+        if (len == 0) {
+            txt.array = added;
+            txt.offset = 0;
+            txt.count = 0;
+            return;
+        }
+        int i = pieceIndex(where);
+        int rel = where - pieceStart(i);
+        int available = pieceLength[i] - rel;
+        char[] direct = pieceBuffer[i] == ADDED ? added : originalChars;
+
+        if (direct != null && (len <= available || txt.isPartialReturn())) {
+            txt.array = direct;
+            txt.offset = pieceOffset[i] + rel;
+            txt.count = Math.min(len, available);
+            return;
+        }
+
+        int n = txt.isPartialReturn() ? Math.min(len, CHUNK) : len;
+        char[] chars = new char[n];
+        copy(where, n, chars, 0);
+        txt.array = chars;
+        txt.offset = 0;
+        txt.count = n;
+    }
+
+    private void checkRange(int where, int len) throws BadLocationException {
+        int end = where + len;
+        if (where < 0 || len < 0 || end > length()) {
+            throw new BadLocationException("Invalid location", length() + 1);
+        }
+    }
+
+    // -------- pedaços --------
+
+    /** Acrescenta o texto no buffer de acréscimos e devolve onde ele começa. */
+    private int append(String str) {
+        int n = str.length();
+        if (addedLength + n > added.length) {
+            added = Arrays.copyOf(added, Math.max(added.length * 2, addedLength + n));
+        }
+        str.getChars(0, n, added, addedLength);
+        addedLength += n;
+        return addedLength - n;
+    }
+
+    private void insertPiece(int where, byte buffer, int offset, int n) {
+        int i = splitAt(where);
+        if (i > 0 && pieceBuffer[i - 1] == buffer
+                && pieceOffset[i - 1] + pieceLength[i - 1] == offset) {
+            // continuação do pedaço anterior (o caso de quem digita em sequência)
+            pieceLength[i - 1] += n;
+            addToEnds(i - 1, n);
+        } else {
+            addPiece(i, buffer, offset, n, where + n);
+            addToEnds(i + 1, n);
+        }
+    }
+
+    /** Índice do pedaço que começa em "offset", partindo em dois o que o contém se preciso. */
+    private int splitAt(int offset) {
+        int i = pieceIndex(offset);
+        int start = pieceStart(i);
+        if (start == offset) return i;
+
+        int rel = offset - start;
+        addPiece(i + 1, pieceBuffer[i], pieceOffset[i] + rel, pieceLength[i] - rel, pieceEnd[i]);
+        pieceLength[i] = rel;
+        pieceEnd[i] = offset;
+        return i + 1;
+    }
+
+    /** Primeiro pedaço que termina depois de "offset" (pieceCount se nenhum). */
+    private int pieceIndex(int offset) {
+        int lo = 0, hi = pieceCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (pieceEnd[mid] <= offset) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private int pieceStart(int i) {
+        return i < pieceCount ? pieceEnd[i] - pieceLength[i] : length();
+    }
+
+    private void addPiece(int at, byte buffer, int offset, int n, int end) {
+        if (pieceCount == pieceBuffer.length) {
+            int capacity = pieceCount * 2;
+            pieceBuffer = Arrays.copyOf(pieceBuffer, capacity);
+            pieceOffset = Arrays.copyOf(pieceOffset, capacity);
+            pieceLength = Arrays.copyOf(pieceLength, capacity);
+            pieceEnd    = Arrays.copyOf(pieceEnd, capacity);
+        }
+        int tail = pieceCount - at;
+        System.arraycopy(pieceBuffer, at, pieceBuffer, at + 1, tail);
+        System.arraycopy(pieceOffset, at, pieceOffset, at + 1, tail);
+        System.arraycopy(pieceLength, at, pieceLength, at + 1, tail);
+        System.arraycopy(pieceEnd, at, pieceEnd, at + 1, tail);
+        pieceBuffer[at] = buffer;
+        pieceOffset[at] = offset;
+        pieceLength[at] = n;
+        pieceEnd[at] = end;
+        pieceCount++;
+    }
+
+    private void deletePieces(int from, int n) {
+        int tail = pieceCount - from - n;
+        System.arraycopy(pieceBuffer, from + n, pieceBuffer, from, tail);
+        System.arraycopy(pieceOffset, from + n, pieceOffset, from, tail);
+        System.arraycopy(pieceLength, from + n, pieceLength, from, tail);
+        System.arraycopy(pieceEnd, from + n, pieceEnd, from, tail);
+        pieceCount -= n;
+    }
+
+    private void addToEnds(int from, int delta) {
+        for (int i = from; i < pieceCount; i++) {
+            pieceEnd[i] += delta;
+        }
+    }
+
+    /** Copia o texto [where, where + len) para dest a partir de destPos. */
+    private void copy(int where, int len, char[] dest, int destPos) {
+        int i = pieceIndex(where);
+        while (len > 0) {
+            int rel = where - pieceStart(i);
+            int n = Math.min(len, pieceLength[i] - rel);
+            int src = pieceOffset[i] + rel;
+            if (pieceBuffer[i] == ADDED) {
+                System.arraycopy(added, src, dest, destPos, n);
+            } else if (originalChars != null) {
+                System.arraycopy(originalChars, src, dest, destPos, n);
+            } else {
+                for (int k = 0; k < n; k++) {
+                    dest[destPos + k] = (char) originalBytes[src + k];
+                }
+            }
+            where += n;
+            destPos += n;
+            len -= n;
+            i++;
+        }
+    }
+
+    // -------- marcas (Positions) --------
+
+    @Override
+    public Position createPosition(int offset) {
+        while (queue.poll() != null) {
+            unusedMarks++;
+        }
+        if (unusedMarks > Math.max(5, markCount / 10)) {
+            removeUnusedMarks();
+        }
+
+        int index = offset < gapStart ? offset : offset + gapLength;
+        int i = findMark(index);
+        StickyPosition position;
+        if (i < markCount && marks[i].index == index && (position = marks[i].get()) != null) {
+            return position;
+        }
+        position = new StickyPosition();
+        Mark mark = new Mark(index, position, queue);
+        position.mark = mark;
+        if (markCount == marks.length) marks = Arrays.copyOf(marks, markCount * 2);
+        System.arraycopy(marks, i, marks, i + 1, markCount - i);
+        marks[i] = mark;
+        markCount++;
+        return position;
+    }
+
+    /** Primeira marca com índice >= index. */
+    private int findMark(int index) {
+        int lo = 0, hi = markCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (marks[mid].index < index) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Leva o buraco para "offset": só as marcas no caminho mudam de lado. */
+    private void moveGap(int offset) {
+        if (offset < gapStart) {
+            for (int i = findMark(offset); i < markCount && marks[i].index < gapStart; i++) {
+                marks[i].index += gapLength;
+            }
+        } else if (offset > gapStart) {
+            int end = offset + gapLength;
+            for (int i = findMark(gapStart + gapLength); i < markCount && marks[i].index < end; i++) {
+                marks[i].index -= gapLength;
+            }
+        }
+        gapStart = offset;
+    }
+
+    private void resizeGap(int newLength) {
+        int delta = newLength - gapLength;
+        for (int i = findMark(gapStart + gapLength); i < markCount; i++) {
+            marks[i].index += delta;
+        }
+        gapLength = newLength;
+    }
+
+    /**
+     * Inserção em "where": as marcas em where ou depois andam n, menos as do
+     * offset 0, que ficam no início (como no GapContent).
+     */
+    private void insertMarks(int where, int n) {
+        moveGap(where);
+        if (gapLength < n) resizeGap(INITIAL_GAP + n);
+        int atWhere = where + gapLength;
+        gapStart += n;
+        gapLength -= n;
+        if (where == 0) {
+            for (int i = 0; i < markCount && marks[i].index == atWhere; i++) {
+                marks[i].index = 0;
+            }
+        }
+    }
+
+    /** Remoção de [where, where + n): as marcas dentro do trecho vão para where. */
+    private void removeMarks(int where, int n) {
+        moveGap(where);
+        if (gapLength + n > MAX_GAP) resizeGap(INITIAL_GAP);
+        int target = where + gapLength + n;
+        for (int i = findMark(where + gapLength); i < markCount && marks[i].index < target; i++) {
+            marks[i].index = target;
+        }
+        gapLength += n;
+    }
+
+    private void removeUnusedMarks() {
+        int n = 0;
+        for (int i = 0; i < markCount; i++) {
+            if (marks[i].get() != null) marks[n++] = marks[i];
+        }
+        Arrays.fill(marks, n, markCount, null);
+        markCount = n;
+        while (queue.poll() != null) { }
+        unusedMarks = 0;
+    }
+
+    private final class Mark extends WeakReference<StickyPosition> {
+        int index;
+
+        Mark(int index, StickyPosition position, ReferenceQueue<Object> queue) {
+            super(position, queue);
+            this.index = index;
+        }
+
+        int getOffset() {
+            return index < gapStart ? index : index - gapLength;
+        }
+    }
+
+    private static final Comparator<Mark> BY_INDEX = Comparator.comparingInt(m -> m.index);
+
+    /**
+     * Marcas vivas em [where, where + n] antes de uma remoção, com o offset de
+     * cada uma (como os UndoPosRef do GapContent).
+     */
+    private static final class UndoMarks {
+        private final Mark[] marks;
+        private final int[] offsets;
+
+        private UndoMarks(Mark[] marks, int[] offsets) {
+            this.marks = marks;
+            this.offsets = offsets;
+        }
+
+        /** null se não há marcas no trecho. */
+        static UndoMarks record(PieceTableContent content, int where, int n) {
+            content.moveGap(where);
+            int from = content.findMark(where + content.gapLength);
+            int to = content.findMark(where + n + content.gapLength + 1);
+            if (from == to) return null;
+
+            Mark[] marks = new Mark[to - from];
+            int[] offsets = new int[to - from];
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                Mark mark = content.marks[i];
+                if (mark.get() != null) {
+                    marks[count] = mark;
+                    offsets[count] = mark.getOffset();
+                    count++;
+                }
+            }
+            return count == 0 ? null : new UndoMarks(Arrays.copyOf(marks, count), Arrays.copyOf(offsets, count));
+        }
+
+        /**
+         * Depois de o trecho voltar para [where, where + n) (o buraco fica logo
+         * depois dele), cada marca que ainda está nessa faixa volta ao seu offset.
+         */
+        void restore(PieceTableContent content, int where, int n) {
+            int from = content.findMark(where);
+            int to = content.findMark(where + n + content.gapLength + 1);
+            for (int k = 0; k < marks.length; k++) {
+                Mark mark = marks[k];
+                int offset = mark.getOffset();
+                if (mark.get() == null || offset < where || offset > where + n) continue;
+                mark.index = offsets[k] < content.gapStart ? offsets[k] : offsets[k] + content.gapLength;
+            }
+            Arrays.sort(content.marks, from, to, BY_INDEX);
+        }
+    }
+
+    private static final class StickyPosition implements Position {
+        Mark mark;
+
+        @Override
+        public int getOffset() {
+            return mark.getOffset();
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toString(getOffset());
+        }
+    }
+
+    // -------- undo --------
+
+    private final class InsertUndo extends AbstractUndoableEdit {
+        private final int offset;
+        private final int length;
+        private String text;
+        private UndoMarks undoMarks;
+
+        InsertUndo(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            try {
+                text = getString(offset, length);
+                undoMarks = ((RemoveUndo) remove(offset, length)).undoMarks;
+            } catch (BadLocationException e) {
+                throw new CannotUndoException();
+            }
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            try {
+                insertString(offset, text);
+                if (undoMarks != null) undoMarks.restore(PieceTableContent.this, offset, length);
+                text = null;
+                undoMarks = null;
+            } catch (BadLocationException e) {
+                throw new CannotRedoException();
+            }
+        }
+    }
+
+    private final class RemoveUndo extends AbstractUndoableEdit {
+        private final int offset;
+        private final String text;
+        private UndoMarks undoMarks;
+
+        RemoveUndo(int offset, String text, UndoMarks undoMarks) {
+            this.offset = offset;
+            this.text = text;
+            this.undoMarks = undoMarks;
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            try {
+                insertString(offset, text);
+                if (undoMarks != null) undoMarks.restore(PieceTableContent.this, offset, text.length());
+                undoMarks = null;
+            } catch (BadLocationException e) {
+                throw new CannotUndoException();
+            }
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            try {
+                undoMarks = ((RemoveUndo) remove(offset, text.length())).undoMarks;
+            } catch (BadLocationException e) {
+                throw new CannotRedoException();
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package br.com.trabalho.compilerui.ui;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.Element;
+import javax.swing.text.PlainDocument;
+import javax.swing.tree.TreeNode;
+import javax.swing.undo.AbstractUndoableEdit;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+
+/**
+ * Documento de texto puro para arquivos grandes. O texto fica numa piece
+ * table (PieceTableContent) e as linhas numa LineTable, em vez de um
+ * Element com duas Positions por linha como no PlainDocument. Abrir um
+ * arquivo é ler os bytes e achar as quebras de linha; os elementos de linha
+ * só são criados quando alguém os pede (em geral, as linhas visíveis) e
+ * descrevem a linha no momento em que foram pedidos.
+ */
+public class PieceTableDocument extends AbstractDocument {
+
+    private final PieceTableContent content;
+    private final LineRoot root = new LineRoot();
+
+    public PieceTableDocument() {
+        this(new PieceTableContent());
+    }
+
+    private PieceTableDocument(PieceTableContent content) {
+        super(content);
+        this.content = content;
+        putProperty(PlainDocument.tabSizeAttribute, 8);
+    }
+
+    /**
+     * Documento com o conteúdo do arquivo (UTF-8). Um arquivo só ASCII é
+     * usado como está, sem decodificar nem copiar.
+     *
+     * Os bytes são lidos para a memória, não mapeados: salvar grava por cima
+     * do mesmo arquivo (TextFileIO.write), e um buffer original mapeado
+     * mudaria por baixo do documento (ou, no Windows, impediria a gravação).
+     * Só as linhas ficam para depois: os elementos são criados sob demanda.
+     */
+    public static PieceTableDocument open(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        CharBuffer chars = null;
+        if (!isAscii(bytes)) {
+            chars = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes));
+        }
+
+        PieceTableDocument doc = new PieceTableDocument();
+        doc.writeLock();
+        try {
+            if (chars == null) doc.content.load(bytes);
+            else doc.content.load(chars.array(), chars.limit());
+        } finally {
+            doc.writeUnlock();
+        }
+        return doc;
+    }
+
+    private static boolean isAscii(byte[] bytes) {
+        int bits = 0;
+        for (byte b : bytes) {
+            bits |= b;
+        }
+        return bits >= 0;
+    }
+
+    /** Índice da linha com mais caracteres. */
+    public int getLongestLine() {
+        readLock();
+        try {
+            return content.lines().longest();
+        } finally {
+            readUnlock();
+        }
+    }
+
+    @Override
+    public Element getDefaultRootElement() {
+        return root;
+    }
+
+    @Override
+    public Element getParagraphElement(int pos) {
+        return root.getElement(root.getElementIndex(pos));
+    }
+
+    @Override
+    protected void insertUpdate(DefaultDocumentEvent chng, AttributeSet attr) {
+        if (content.lines().linesChanged()) chng.addEdit(new LineChange());
+        super.insertUpdate(chng, attr);
+    }
+
+    @Override
+    protected void postRemoveUpdate(DefaultDocumentEvent chng) {
+        if (content.lines().linesChanged()) chng.addEdit(new LineChange());
+        super.postRemoveUpdate(chng);
+    }
+
+    /** Raiz com uma linha por filho, lidas da LineTable. */
+    private final class LineRoot extends AbstractElement {
+
+        LineRoot() {
+            super(null, null);
+        }
+
+        @Override public int getStartOffset() { return 0; }
+        @Override public int getEndOffset() { return content.length(); }
+        @Override public boolean isLeaf() { return false; }
+        @Override public boolean getAllowsChildren() { return true; }
+        @Override public String getName() { return ParagraphElementName; }
+
+        @Override
+        public Element getElement(int index) {
+            LineTable lines = content.lines();
+            if (index < 0 || index >= lines.count()) return null;
+            return new Line(lines.start(index), lines.end(index));
+        }
+
+        @Override
+        public int getElementCount() {
+            return content.lines().count();
+        }
+
+        @Override
+        public int getElementIndex(int offset) {
+            return content.lines().lineOf(offset);
+        }
+
+        @Override
+        public Enumeration<TreeNode> children() {
+            return new Enumeration<>() {
+                private int next;
+
+                @Override
+                public boolean hasMoreElements() {
+                    return next < getElementCount();
+                }
+
+                @Override
+                public TreeNode nextElement() {
+                    if (!hasMoreElements()) throw new NoSuchElementException();
+                    return (TreeNode) getElement(next++);
+                }
+            };
+        }
+    }
+
+    /** Uma linha: a faixa [start, end) que ela ocupava quando foi pedida. */
+    private final class Line extends AbstractElement {
+        private final int start;
+        private final int end;
+
+        Line(int start, int end) {
+            super(root, null);
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override public int getStartOffset() { return start; }
+        @Override public int getEndOffset() { return end; }
+        @Override public boolean isLeaf() { return true; }
+        @Override public boolean getAllowsChildren() { return false; }
+        @Override public String getName() { return ContentElementName; }
+        @Override public Element getElement(int index) { return null; }
+        @Override public int getElementCount() { return 0; }
+        @Override public int getElementIndex(int offset) { return -1; }
+        @Override public Enumeration<TreeNode> children() { return null; }
+    }
+
+    /**
+     * Linhas trocadas por uma edição, para as views. Desfazer a edição não
+     * precisa mexer aqui: o conteúdo refaz a LineTable sozinho.
+     */
+    private final class LineChange extends AbstractUndoableEdit implements DocumentEvent.ElementChange {
+        private final int index;
+        private final int addedCount;
+        private final int[] removedStarts;
+        private final int removedEnd;
+
+        LineChange() {
+            LineTable lines = content.lines();
+            index = lines.changeLine();
+            addedCount = lines.changeAdded();
+            removedStarts = lines.removedStarts();
+            removedEnd = lines.removedEnd();
+        }
+
+        @Override public Element getElement() { return root; }
+        @Override public int getIndex() { return index; }
+
+        @Override
+        public Element[] getChildrenRemoved() {
+            Element[] removed = new Element[removedStarts.length];
+            for (int i = 0; i < removed.length; i++) {
+                int end = i + 1 < removed.length ? removedStarts[i + 1] : removedEnd;
+                removed[i] = new Line(removedStarts[i], end);
+            }
+            return removed;
+        }
+
+        @Override
+        public Element[] getChildrenAdded() {
+            Element[] added = new Element[addedCount];
+            for (int i = 0; i < added.length; i++) {
+                added[i] = root.getElement(index + i);
+            }
+            return added;
+        }
+    }
+}
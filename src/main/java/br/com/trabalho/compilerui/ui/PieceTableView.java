@@ -0,0 +1,144 @@
+package br.com.trabalho.compilerui.ui;
+
+import javax.swing.JTextArea;
+import javax.swing.event.DocumentEvent;
+import javax.swing.plaf.basic.BasicTextAreaUI;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.PlainView;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.text.Utilities;
+import javax.swing.text.View;
+import javax.swing.text.ViewFactory;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Shape;
+
+/**
+ * PlainView para o PieceTableDocument. A PlainView mede todas as linhas
+ * para achar a mais larga, ao abrir o documento e a cada vez que a mais
+ * larga é editada; num arquivo com milhões de linhas isso leva segundos.
+ * Aqui a largura é a da linha com mais caracteres, que o documento já
+ * acompanha, medida sozinha (com fonte monoespaçada e sem tabs é a mesma).
+ */
+final class PieceTableView extends PlainView {
+
+    private Font font;
+    private float tabWidth;
+    private int tabOrigin;
+
+    // última linha medida para a largura preferida
+    private int widestLine = -1;
+    private int widestLength;
+    private float widestWidth;
+
+    PieceTableView(Element elem) {
+        super(elem);
+    }
+
+    @Override
+    protected void updateMetrics() {
+        Component host = getContainer();
+        Font f = host.getFont();
+        if (font != f) {
+            font = f;
+            metrics = host.getFontMetrics(f);
+            tabWidth = getTabSize() * metrics.charWidth('m');
+            widestLine = -1;
+        }
+    }
+
+    // a PlainView guarda a origem dos tabs num campo que não é visível daqui
+
+    @Override
+    public void paint(Graphics g, Shape a) {
+        tabOrigin = a.getBounds().x;
+        super.paint(g, a);
+    }
+
+    @Override
+    public Shape modelToView(int pos, Shape a, Position.Bias b) throws BadLocationException {
+        tabOrigin = a.getBounds().x;
+        return super.modelToView(pos, a, b);
+    }
+
+    @Override
+    public int viewToModel(float fx, float fy, Shape a, Position.Bias[] bias) {
+        tabOrigin = a.getBounds().x;
+        return super.viewToModel(fx, fy, a, bias);
+    }
+
+    @Override
+    public float nextTabStop(float x, int tabOffset) {
+        if (tabWidth == 0) return x;
+        int ntabs = (int) ((x - tabOrigin) / tabWidth);
+        return tabOrigin + (ntabs + 1) * tabWidth;
+    }
+
+    @Override
+    public float getPreferredSpan(int axis) {
+        updateMetrics();
+        switch (axis) {
+            case View.X_AXIS:
+                return widestWidth();
+            case View.Y_AXIS:
+                return getElement().getElementCount() * metrics.getHeight();
+            default:
+                throw new IllegalArgumentException("Invalid axis: " + axis);
+        }
+    }
+
+    private float widestWidth() {
+        int line = ((PieceTableDocument) getDocument()).getLongestLine();
+        Element e = getElement().getElement(line);
+        int p0 = e.getStartOffset();
+        int p1 = e.getEndOffset();
+        if (line != widestLine || p1 - p0 != widestLength) {
+            widestLine = line;
+            widestLength = p1 - p0;
+            Segment s = getLineBuffer();
+            try {
+                getDocument().getText(p0, p1 - p0, s);
+                widestWidth = Utilities.getTabbedTextWidth(s, metrics, (float) tabOrigin, this, p0);
+            } catch (BadLocationException ex) {
+                widestWidth = 0;
+            }
+        }
+        return widestWidth;
+    }
+
+    @Override
+    protected void updateDamage(DocumentEvent changes, Shape a, ViewFactory f) {
+        Component host = getContainer();
+        updateMetrics();
+        float width = widestWidth;
+        if (changes.getChange(getElement()) != null) {
+            // linhas entraram ou saíram: muda a altura e o que vem abaixo
+            preferenceChanged(null, true, true);
+            host.repaint();
+        } else {
+            int line = getElement().getElementIndex(changes.getOffset());
+            damageLineRange(line, line, a, host);
+            if (widestWidth() != width) {
+                preferenceChanged(null, true, false);
+            }
+        }
+    }
+
+    /** UI do JTextArea que usa esta view para um PieceTableDocument sem quebra de linha. */
+    static final class UI extends BasicTextAreaUI {
+        @Override
+        public View create(Element elem) {
+            JTextComponent c = getComponent();
+            boolean i18n = Boolean.TRUE.equals(elem.getDocument().getProperty("i18n"));
+            if (elem.getDocument() instanceof PieceTableDocument && !i18n
+                    && c instanceof JTextArea area && !area.getLineWrap()) {
+                return new PieceTableView(elem);
+            }
+            return super.create(elem);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import java.awt.*;
 
 public class StatusBar extends JPanel {
     private final JLabel label;
+    private final JProgressBar progress;
 
 
     public StatusBar() {
@@ -16,9 +17,22 @@ public class StatusBar extends JPanel {
         setBorder(new MatteBorder(1, 0, 0, 0, new Color(210, 210, 210)));
         label = new JLabel(" ");
         add(label, BorderLayout.WEST);
+
+        // progresso da compilação em segundo plano (oculto quando parado)
+        progress = new JProgressBar(0, 100);
+        progress.setStringPainted(true);
+        progress.setVisible(false);
+        add(progress, BorderLayout.EAST);
     }
 
 
     public void updatePath(String path) { label.setText(path == null ? " " : path); }
     public void clear() { label.setText(" "); }
+
+    public void showProgress(int percent) {
+        progress.setValue(percent);
+        progress.setVisible(true);
+    }
+
+    public void hideProgress() { progress.setVisible(false); }
 }
\ No newline at end of file
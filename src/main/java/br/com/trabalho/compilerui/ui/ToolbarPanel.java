@@ -21,6 +21,7 @@ public class ToolbarPanel extends JPanel {
     private final JButton btnRecortar;
     private final JButton btnCompilar;
     private final JButton btnEquipe;
+    private final JCheckBox chkVerificar;
 
     @SuppressWarnings("unused")
     private final AppFrame app;
@@ -58,6 +59,11 @@ public class ToolbarPanel extends JPanel {
         btnCompilar = createButton("compilar [F7]", "compilar.png");
         // OBS: não adicionamos ActionListener aqui; o AppFrame liga esse botão ao doCompilar()
         toolBar.add(btnCompilar);
+
+        // verificação enquanto se digita (desligada por padrão)
+        chkVerificar = new JCheckBox("verificar ao digitar");
+        chkVerificar.setFocusable(false);
+        toolBar.add(chkVerificar);
         toolBar.addSeparator();
 
         // ==== Equipe ====
@@ -102,4 +108,5 @@ public class ToolbarPanel extends JPanel {
     public JButton getBtnRecortar()  { return btnRecortar; }
     public JButton getBtnCompilar()  { return btnCompilar; }
     public JButton getBtnEquipe()    { return btnEquipe; }
+    public JCheckBox getChkVerificar() { return chkVerificar; }
 }